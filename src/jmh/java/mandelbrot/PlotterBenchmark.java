@@ -0,0 +1,150 @@
+package mandelbrot;
+
+import mandelbrot.plotter.*;
+import mandelbrot.render.TileScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Frames of a fixed catalogue of views through every plotter, for every limit and worker count. Besides the frame
+//rate JMH reports the pixels and iterations per second the frames came to; iterations are the ones the plotter
+//executed, so interior pixels a plotter recognised early take none.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PlotterBenchmark {
+
+    private static final int WIDTH = 512;
+    private static final int HEIGHT = 512;
+    private static final int TILE_SIZE = 64;
+    //Julia views use the Douady rabbit, whose filled set has a large interior like the Mandelbrot set
+    private static final double JULIA_X = -0.123;
+    private static final double JULIA_Y = 0.745;
+
+    @Param({"Mandelbrot", "MandelbrotAVX", "MandelbrotFloatAVX", "Julia", "JuliaAVX", "JuliaFloatAVX"})
+    public String plotter;
+
+    @Param({"full", "seahorse", "interior", "exterior"})
+    public String view;
+
+    @Param({"100", "1000", "10000"})
+    public int maxIterations;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Plotter target;
+    private ExecutorService executorService;
+    private TileScheduler scheduler;
+    private double minx;
+    private double miny;
+    private double step;
+
+    //centers and widths of the views, Mandelbrot first, then Julia. Seahorse is about a third interior, interior
+    //lies wholly inside the set (for Mandelbrot in a bulb the cardioid test misses), exterior is the whole set small
+    //in the middle.
+    private enum Views {
+        full(-0.5, 0, 4, 0, 0, 3.2),
+        seahorse(-0.745, 0.11, 0.02, 0.1, 0.4, 0.05),
+        interior(-0.1226, 0.7449, 0.05, 0.2, 0.1, 0.2),
+        exterior(-0.5, 0, 16, 0, 0, 16);
+
+        private final double mandelbrotX;
+        private final double mandelbrotY;
+        private final double mandelbrotWidth;
+        private final double juliaX;
+        private final double juliaY;
+        private final double juliaWidth;
+
+        Views(double mandelbrotX, double mandelbrotY, double mandelbrotWidth,
+              double juliaX, double juliaY, double juliaWidth) {
+            this.mandelbrotX = mandelbrotX;
+            this.mandelbrotY = mandelbrotY;
+            this.mandelbrotWidth = mandelbrotWidth;
+            this.juliaX = juliaX;
+            this.juliaY = juliaY;
+            this.juliaWidth = juliaWidth;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean julia = plotter.startsWith("Julia");
+        switch (plotter) {
+            case "Mandelbrot":
+                target = new MandelbrotPlotter(WIDTH, HEIGHT);
+                break;
+            case "MandelbrotAVX":
+                target = new MandelbrotAVXPlotter(WIDTH, HEIGHT);
+                break;
+            case "MandelbrotFloatAVX":
+                target = new MandelbrotFloatAVXPlotter(WIDTH, HEIGHT);
+                break;
+            case "Julia":
+                target = new JuliaPlotter(WIDTH, HEIGHT);
+                break;
+            case "JuliaAVX":
+                target = new JuliaAVXPlotter(WIDTH, HEIGHT);
+                break;
+            case "JuliaFloatAVX":
+                target = new JuliaFloatAVXPlotter(WIDTH, HEIGHT);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown plotter " + plotter);
+        }
+        target.setMaxIterations(maxIterations);
+        target.setZ(julia ? JULIA_X : 0, julia ? JULIA_Y : 0);
+
+        Views views = Views.valueOf(view);
+        double centerX = julia ? views.juliaX : views.mandelbrotX;
+        double centerY = julia ? views.juliaY : views.mandelbrotY;
+        step = (julia ? views.juliaWidth : views.mandelbrotWidth) / WIDTH;
+        minx = centerX - WIDTH / 2.0 * step;
+        miny = centerY - HEIGHT / 2.0 * step;
+
+        executorService = Executors.newFixedThreadPool(threads);
+        scheduler = new TileScheduler(executorService, threads, TILE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public int[] frame(Counters counters) throws InterruptedException {
+        scheduler.render(0, 0, WIDTH, HEIGHT, (x, y, w, h) -> target.plot(minx + x * step, miny + y * step, step,
+                w, h,
+                y * WIDTH + x, WIDTH));
+
+        return target.getBuffer();
+    }
+
+    //reported per second next to the frame rate, counted after each frame outside the timed part
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long pixels;
+        public long iterations;
+        //the plotter's count when the measurement iteration started
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void reset(PlotterBenchmark benchmark) {
+            pixels = 0;
+            iterations = 0;
+            start = benchmark.target.getIterations();
+        }
+
+        @TearDown(Level.Invocation)
+        public void count(PlotterBenchmark benchmark) {
+            pixels += benchmark.target.getBuffer().length;
+            iterations = benchmark.target.getIterations() - start;
+        }
+    }
+}
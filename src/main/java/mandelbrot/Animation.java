@@ -0,0 +1,137 @@
+package mandelbrot;
+
+import mandelbrot.render.AnimationRenderer;
+import mandelbrot.render.TileScheduler;
+import mandelbrot.render.View;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+//Headless zoom animation along a keyframe path, written as a numbered PNG sequence:
+//  java --add-modules jdk.incubator.vector -cp <classes> mandelbrot.Animation --keyframes dive.txt --avx
+//Every keyframe line is "centerX centerY zoom maxIterations [startX startY]", blank lines and # comments are
+//skipped. Between two keyframes --frames frames zoom at a constant rate towards the next center while the limit
+//and the start point change linearly. --help lists the options and when frames reuse the one before.
+public class Animation {
+
+    private static final String DEFAULT_SIZE = "1280x720";
+    private static final int DEFAULT_FRAMES = 60;
+    private static final int DEFAULT_TILE_SIZE = 64;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: mandelbrot.Animation --keyframes <file> [options]",
+            "  --keyframes <file>  lines of \"centerX centerY zoom maxIterations [startX startY]\"",
+            "  --frames <n>        frames from one keyframe to the next, default " + DEFAULT_FRAMES,
+            "  --size <w>x<h>      frame size, default " + DEFAULT_SIZE,
+            "  --output <dir>      where frame-<i>.png go, default frames",
+            "  --set <name>, --avx, --subdivision, --smooth  as in the window",
+            "  --threads <n>, --encoders <n>, --compression <0-9>",
+            "A frame only reuses the pixels of the one before when its grid refines that frame's: same limit and",
+            "start point, a zoom by a whole factor and a pan by whole pixels. The zoom between two keyframes grows",
+            "by a fractional factor every frame, so dives plot every frame in full; only keyframes of equal zoom and",
+            "limit whose frames pan by whole pixels reuse them.");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = Poster.parse(args);
+        if (options.containsKey("help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (!options.containsKey("keyframes")) {
+            throw new IllegalArgumentException("--keyframes <file> is required");
+        }
+
+        String[] size = options.getOrDefault("size", DEFAULT_SIZE).split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        int frames = Integer.parseInt(options.getOrDefault("frames", String.valueOf(DEFAULT_FRAMES)));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int encoders = Integer.parseInt(options.getOrDefault("encoders", String.valueOf(Math.max(1, threads / 2))));
+        int level = Integer.parseInt(options.getOrDefault("compression",
+                String.valueOf(Deflater.DEFAULT_COMPRESSION)));
+        Path output = Path.of(options.getOrDefault("output", "frames"));
+
+        List<View> keyframes = new ArrayList<>();
+        List<String> lines = Files.readAllLines(Path.of(options.get("keyframes")));
+        for (int i = 0; i < lines.size(); ++i) {
+            String[] fields = lines.get(i).trim().split("\\s+");
+            if (fields[0].isEmpty() || fields[0].startsWith("#")) {
+                continue;
+            }
+            String where = options.get("keyframes") + ":" + (i + 1);
+            if (fields.length != 4 && fields.length != 6) {
+                throw new IllegalArgumentException(where + ": expected centerX centerY zoom maxIterations "
+                        + "[startX startY], got " + fields.length + " fields");
+            }
+            try {
+                keyframes.add(new View(new BigDecimal(fields[0]), new BigDecimal(fields[1]),
+                        Double.parseDouble(fields[2]), Integer.parseInt(fields[3]),
+                        fields.length == 6 ? Double.parseDouble(fields[4]) : 0,
+                        fields.length == 6 ? Double.parseDouble(fields[5]) : 0,
+                        options.getOrDefault("set", "Mandelbrot"),
+                        options.containsKey("avx"), options.containsKey("subdivision"),
+                        options.containsKey("smooth"), false));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(where + ": " + e.getMessage(), e);
+            }
+        }
+        if (keyframes.isEmpty()) {
+            throw new IllegalArgumentException("No keyframes in " + options.get("keyframes"));
+        }
+
+        List<View> views = new ArrayList<>();
+        for (int k = 0; k + 1 < keyframes.size(); ++k) {
+            for (int frame = 0; frame < frames; ++frame) {
+                views.add(interpolate(keyframes.get(k), keyframes.get(k + 1), (double) frame / frames));
+            }
+        }
+        views.add(keyframes.get(keyframes.size() - 1));
+
+        Files.createDirectories(output);
+        System.out.println("Rendering " + views.size() + " frames of " + width + " x " + height + " to " + output);
+        long began = System.nanoTime();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        int reused;
+        try {
+            TileScheduler scheduler = new TileScheduler(executorService, threads, DEFAULT_TILE_SIZE);
+            reused = new AnimationRenderer(width, height, scheduler, encoders, level).render(views, output);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        System.out.printf("Done in %.1fs, %d frames reused the one before%n", (System.nanoTime() - began) / 1e9,
+                reused);
+    }
+
+    //The view a fraction t of the way from one keyframe to the next. The zoom grows geometrically and the center
+    //moves so that the next center keeps its place on screen, which is what a steady dive looks like.
+    private static View interpolate(View from, View to, double t) {
+        double rate = from.getZoom() / to.getZoom();
+        double zoom = from.getZoom() * Math.pow(to.getZoom() / from.getZoom(), t);
+        //how much of the way from the next center back to this one is left
+        double left = rate == 1 ? 1 - t : (Math.pow(rate, t) - rate) / (1 - rate);
+
+        BigDecimal weight = BigDecimal.valueOf(left);
+        BigDecimal centerX = to.getPreciseCenterX()
+                .add(from.getPreciseCenterX().subtract(to.getPreciseCenterX()).multiply(weight));
+        BigDecimal centerY = to.getPreciseCenterY()
+                .add(from.getPreciseCenterY().subtract(to.getPreciseCenterY()).multiply(weight));
+        int maxIterations = (int) Math.round(from.getMaxIterations()
+                + (to.getMaxIterations() - from.getMaxIterations()) * t);
+
+        return new View(centerX, centerY, zoom, maxIterations,
+                from.getStartX() + (to.getStartX() - from.getStartX()) * t,
+                from.getStartY() + (to.getStartY() - from.getStartY()) * t,
+                from.getSet(), from.isAVX(), from.isSubdivision(), from.isSmooth(), from.isEqualised());
+    }
+}
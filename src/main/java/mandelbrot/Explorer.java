@@ -0,0 +1,34 @@
+package mandelbrot;
+
+import mandelbrot.web.ExplorerServer;
+import mandelbrot.web.TileStore;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Map;
+
+//Serves the web explorer of src/main/resources with its tiles plotted here:
+//  java --add-modules jdk.incubator.vector -cp <classes and resources> mandelbrot.Explorer --port 8080 --avx
+//then open http://localhost:8080/. --cache is how many MB of tiles are kept. It only listens on loopback unless
+//--bind gives another address, anyone who reaches the port can have it plot.
+public class Explorer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final long DEFAULT_CACHE = 256;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Poster.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT)));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long cache = Long.parseLong(options.getOrDefault("cache", String.valueOf(DEFAULT_CACHE)));
+        InetAddress address = options.containsKey("bind")
+                ? InetAddress.getByName(options.get("bind"))
+                : InetAddress.getLoopbackAddress();
+
+        ExplorerServer server = new ExplorerServer(address, port, threads,
+                new TileStore(cache << 20, options.containsKey("avx")));
+        server.start();
+        System.out.println("Explorer on http://" + address.getHostAddress() + ":" + server.getPort() + "/");
+    }
+}
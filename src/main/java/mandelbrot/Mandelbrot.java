@@ -8,6 +8,8 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.math.BigDecimal;
+import java.util.Map;
 
 public class Mandelbrot extends JFrame implements MouseListener, MouseMotionListener {
 
@@ -15,6 +17,8 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
     private static final float DEFAULT_CENTER_Y = 0.0F;
     private static final float DEFAULT_WIDTH = 4.0F;
     private static final int DEFAULT_MAX_ITERATIONS = 100;
+    private static final int DEFAULT_TILE_SIZE = 64;
+    private static final double ZOOM_RATE = 1.2;
 
     private final Header header;
     private final Content content;
@@ -22,9 +26,13 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
     private final int width;
     private final int height;
 
+    private final double baseZoom;
+    //the zoom is baseZoom * ZOOM_RATE^zoomLevel, so zooming back out lands on the exact zoom cached tiles have
+    private int zoomLevel;
     private double zoom;
-    private double centerX = DEFAULT_CENTER_X;
-    private double centerY = DEFAULT_CENTER_Y;
+    //kept exact, doubles run out of digits long before a perturbation zoom does
+    private BigDecimal centerX = BigDecimal.valueOf(DEFAULT_CENTER_X);
+    private BigDecimal centerY = BigDecimal.valueOf(DEFAULT_CENTER_Y);
 
     private int dragStartX;
     private int dragStartY;
@@ -35,10 +43,12 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
         this.width = width;
         this.height = height;
 
-        zoom = (double) width / DEFAULT_WIDTH;
+        baseZoom = (double) width / DEFAULT_WIDTH;
+        zoom = baseZoom;
 
-        this.header = new Header(width, centerX, centerY, zoom, DEFAULT_MAX_ITERATIONS);
-        this.content = new Content(width, height, threads, centerX, centerY, zoom, DEFAULT_MAX_ITERATIONS);
+        this.header = new Header(width, centerX.doubleValue(), centerY.doubleValue(), zoom, DEFAULT_MAX_ITERATIONS);
+        this.content = new Content(width, height, threads, DEFAULT_TILE_SIZE, centerX, centerY, zoom,
+                DEFAULT_MAX_ITERATIONS);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         getContentPane().add(header, BorderLayout.NORTH);
@@ -48,39 +58,53 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
         setVisible(true);
 
         this.header.onMaxIterationsChanged(content::setMaxIterations);
+        this.header.onAutoIterationsChanged(content::setAutoIterations);
         this.header.onStartZChanged(content::setStartZ);
         this.header.onAVXChanged(content::setAVX);
+        this.header.onSubdivisionChanged(content::setSubdivision);
+        this.header.onSmoothChanged(content::setSmooth);
+        this.header.onEqualisedChanged(content::setEqualised);
         this.header.onSetChanged(content::setSet);
 
         this.content.addMouseListener(this);
         this.content.addMouseMotionListener(this);
     }
 
-    private void zoom(double rate, int sx, int sy) {
-        centerX += (1  - 1 / rate) / zoom * (sx - width / 2.0);
-        centerY += (1  - 1 / rate) / zoom * (sy - height / 2.0);
-        header.setCenter(centerX, centerY);
+    private void zoom(int level, int sx, int sy) {
+        double next = baseZoom * Math.pow(ZOOM_RATE, level);
+        double rate = next / zoom;
+        centerX = centerX.add(BigDecimal.valueOf((1  - 1 / rate) / zoom * (sx - width / 2.0)));
+        centerY = centerY.add(BigDecimal.valueOf((1  - 1 / rate) / zoom * (sy - height / 2.0)));
+        header.setCenter(centerX.doubleValue(), centerY.doubleValue());
         content.setCenter(centerX, centerY);
 
-        zoom *= rate;
+        zoomLevel = level;
+        zoom = next;
         header.setZoom(zoom);
         content.setZoom(zoom);
     }
 
     public void update() throws InterruptedException {
+        content.awaitChange();
+
         long frameStart = System.nanoTime();
-        content.update();
+        boolean rendered = content.update();
         long frameEnd = System.nanoTime();
-        float delta = (float) ((frameEnd - frameStart)) / 1_000_000_000;
-        header.update(delta);
+        if (rendered) {
+            float delta = (float) ((frameEnd - frameStart)) / 1_000_000_000;
+            header.update(delta, content.getMetrics());
+            //the spinner belongs to the event dispatch thread; the limit is read there, so a user edit made in
+            //between is not shown back as the one auto mode picked
+            SwingUtilities.invokeLater(() -> header.setMaxIterations(content.getMaxIterations()));
+        }
     }
 
     @Override
     public void mouseClicked(MouseEvent e) {
         if (header.zoomIn()) {
-            zoom(1.2, e.getX(), e.getY());
+            zoom(zoomLevel + 1, e.getX(), e.getY());
         } else if (header.zoomOut()) {
-            zoom(0.8, e.getX(), e.getY());
+            zoom(zoomLevel - 1, e.getX(), e.getY());
         }
     }
 
@@ -107,10 +131,10 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
         int dx = dragStartX - e.getX();
         int dy = dragStartY - e.getY();
 
-        centerX += dx / zoom;
-        centerY += dy / zoom;
+        centerX = centerX.add(BigDecimal.valueOf(dx / zoom));
+        centerY = centerY.add(BigDecimal.valueOf(dy / zoom));
 
-        header.setCenter(centerX, centerY);
+        header.setCenter(centerX.doubleValue(), centerY.doubleValue());
         content.setCenter(centerX, centerY);
 
         dragStartX = e.getX();
@@ -121,15 +145,19 @@ public class Mandelbrot extends JFrame implements MouseListener, MouseMotionList
     public void mouseMoved(MouseEvent e) {
     }
 
+    //--frame-budget is the frame time in milliseconds that auto iterations keep the limit within
     public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = Poster.parse(args);
         int processors = Runtime.getRuntime().availableProcessors();
         System.out.println("Detected " + processors + ". Using 4x (" + 4 * processors + ") threads.");
 
         Mandelbrot mandelbrot = new Mandelbrot(1536, 864, 4 * processors);
+        if (options.containsKey("frame-budget")) {
+            mandelbrot.content.setFrameBudget(Long.parseLong(options.get("frame-budget")));
+        }
 
         while (true) {
             mandelbrot.update();
-            Thread.sleep(100);
         }
     }
 }
@@ -0,0 +1,131 @@
+package mandelbrot;
+
+import mandelbrot.render.BandRenderer;
+import mandelbrot.render.IterationFile;
+import mandelbrot.render.Palette;
+import mandelbrot.render.PngWriter;
+import mandelbrot.render.TileScheduler;
+import mandelbrot.render.View;
+import mandelbrot.render.WorkerPool;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+
+//Headless renderer for images far larger than the window, e.g. a 32768 x 32768 poster:
+//  java --add-modules jdk.incubator.vector -cp <classes> mandelbrot.Poster --size 32768x32768 --avx --smooth
+//The image is rendered band by band straight into the PNG, so memory depends on the band size, not the image.
+//--counts also keeps the raw iteration counts in an IterationFile, --recolour turns one back into a PNG.
+//--workers host:port,... has Worker processes plot the tiles, this one only colours and writes them.
+//--antialias 4 (or 9, 16, ...) plots the pixels along edges again at that many jittered points and averages them.
+public class Poster {
+
+    private static final String DEFAULT_SIZE = "4096x4096";
+    private static final String DEFAULT_CENTER = "-0.5,0";
+    //width of the plane the image spans when no zoom is given, like the window's starting view
+    private static final double DEFAULT_PLANE_WIDTH = 4.0;
+    private static final int DEFAULT_MAX_ITERATIONS = 100;
+    private static final int DEFAULT_BAND_HEIGHT = 64;
+    private static final int DEFAULT_TILE_SIZE = 64;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parse(args);
+        int level = Integer.parseInt(options.getOrDefault("compression",
+                String.valueOf(Deflater.DEFAULT_COMPRESSION)));
+        String output = options.getOrDefault("output", "mandelbrot.png");
+        if (options.containsKey("recolour")) {
+            recolour(Path.of(options.get("recolour")), output, level);
+            return;
+        }
+
+        String[] size = options.getOrDefault("size", DEFAULT_SIZE).split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        String[] center = options.getOrDefault("center", DEFAULT_CENTER).split(",");
+        String[] start = options.getOrDefault("start", "0,0").split(",");
+        double zoom = options.containsKey("zoom")
+                ? Double.parseDouble(options.get("zoom"))
+                : width / DEFAULT_PLANE_WIDTH;
+
+        View view = new View(new BigDecimal(center[0]), new BigDecimal(center[1]), zoom,
+                Integer.parseInt(options.getOrDefault("iterations", String.valueOf(DEFAULT_MAX_ITERATIONS))),
+                Double.parseDouble(start[0]), Double.parseDouble(start[1]),
+                options.getOrDefault("set", "Mandelbrot"),
+                options.containsKey("avx"), options.containsKey("subdivision"), options.containsKey("smooth"),
+                false);
+        int bandHeight = Integer.parseInt(options.getOrDefault("band", String.valueOf(DEFAULT_BAND_HEIGHT)));
+        Path counts = options.containsKey("counts") ? Path.of(options.get("counts")) : null;
+        WorkerPool workers = options.containsKey("workers")
+                ? WorkerPool.connect(WorkerPool.parse(options.get("workers")))
+                : null;
+        //with workers every thread mostly waits for one of their connections
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(workers != null
+                ? workers.size()
+                : Runtime.getRuntime().availableProcessors())));
+
+        System.out.println("Rendering " + width + " x " + height + " " + view + " to " + output);
+        long began = System.nanoTime();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output));
+             PngWriter png = new PngWriter(out, width, height, level);
+             IterationFile file = counts != null ? IterationFile.create(counts, view, width, height) : null) {
+            TileScheduler scheduler = new TileScheduler(executorService, threads, DEFAULT_TILE_SIZE);
+            BandRenderer renderer = new BandRenderer(view, width, height, bandHeight, scheduler);
+            renderer.setWorkers(workers);
+            renderer.setAntialiasing(Integer.parseInt(options.getOrDefault("antialias", "1")));
+            renderer.render(png, file);
+        } finally {
+            executorService.shutdownNow();
+            if (workers != null) {
+                workers.close();
+            }
+        }
+
+        System.out.printf("Done in %.1fs%n", (System.nanoTime() - began) / 1e9);
+    }
+
+    //Colours the counts of an iteration file band by band, with the banded palette as the file keeps no |z|.
+    private static void recolour(Path counts, String output, int level) throws IOException {
+        try (IterationFile file = IterationFile.open(counts);
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(output));
+             PngWriter png = new PngWriter(out, file.getWidth(), file.getHeight(), level)) {
+            int width = file.getWidth();
+            int maxIterations = file.getMaxIterations();
+            int[] band = new int[width * DEFAULT_BAND_HEIGHT];
+            for (int top = 0; top < file.getHeight(); top += DEFAULT_BAND_HEIGHT) {
+                int rows = Math.min(DEFAULT_BAND_HEIGHT, file.getHeight() - top);
+                file.read(0, top, width, rows, band, 0, width);
+                for (int pixel = 0; pixel < rows * width; ++pixel) {
+                    band[pixel] = Palette.banded(band[pixel], maxIterations);
+                }
+                png.write(band, 0, rows);
+            }
+        }
+    }
+
+    //--name value pairs, or just --name for the switches
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(name, args[++i]);
+            } else {
+                options.put(name, "");
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,35 @@
+package mandelbrot;
+
+import mandelbrot.render.TileServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Map;
+
+//Plots tiles for a Poster started with --workers, e.g. three workers on one machine:
+//  java --add-modules jdk.incubator.vector -cp <classes> mandelbrot.Worker --port 7001 --threads 4
+//  ...
+//  java ... mandelbrot.Poster --avx --workers localhost:7001,localhost:7002,localhost:7003
+//--threads is how many tiles it plots at once, the Poster keeps that many connections to it busy.
+//It only listens on loopback unless --bind gives another address (e.g. --bind 0.0.0.0 for all of them); there is
+//no authentication, so only bind it where every host that can reach the port may use it.
+public class Worker {
+
+    private static final int DEFAULT_PORT = 7001;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Poster.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT)));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        InetAddress address = options.containsKey("bind")
+                ? InetAddress.getByName(options.get("bind"))
+                : InetAddress.getLoopbackAddress();
+
+        try (TileServer server = new TileServer(address, port, threads)) {
+            System.out.println("Plotting tiles on " + address.getHostAddress() + ":" + server.getPort()
+                    + " with " + threads + " threads");
+            server.serve();
+        }
+    }
+}
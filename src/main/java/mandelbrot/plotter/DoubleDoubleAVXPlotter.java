@@ -0,0 +1,130 @@
+package mandelbrot.plotter;
+
+import jdk.incubator.vector.*;
+
+import static jdk.incubator.vector.VectorOperators.FMA;
+
+//Vector form of DoubleDoublePlotter: hi and lo parts live in separate vectors and twoProd uses the lanewise FMA.
+public class DoubleDoubleAVXPlotter extends DoubleDoublePlotter {
+
+    protected static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+    protected static final VectorSpecies<Long> LS = LongVector.SPECIES_PREFERRED;
+    protected static final DoubleVector FOUR = DoubleVector.broadcast(DS, 4);
+
+    public DoubleDoubleAVXPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        DoubleVector steps = Lanes.IOTA.mul(step);
+        int[] scatter = Lanes.scatter(pixelStride);
+        DoubleVector cxh = DoubleVector.broadcast(DS, centerXHi);
+        DoubleVector zero = DoubleVector.zero(DS);
+        DoubleVector startX = DoubleVector.broadcast(DS, this.zx);
+        DoubleVector startY = DoubleVector.broadcast(DS, this.zy);
+        double[] magnitude = new double[DS.length()];
+        //active lane steps and all lane steps of the tile
+        long[] laneSteps = new long[2];
+
+        double y = miny;
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
+            double yh = centerYHi + y;
+            double yv = yh - centerYHi;
+            double yl = (centerYHi - (yh - yv)) + (y - yv) + centerYLo;
+            DoubleVector vyh = DoubleVector.broadcast(DS, yh);
+            DoubleVector vyl = DoubleVector.broadcast(DS, yl);
+
+            int pixel = offset + i * stride;
+            for (int j = 0; j < tileWidth; j += DS.length()) {
+                VectorMask<Integer> lanes = Lanes.IS.indexInRange(j, tileWidth);
+                VectorMask<Long> range = lanes.cast(LS);
+
+                DoubleVector x = steps.add(minx + j * step);
+                DoubleVector xh = cxh.add(x);
+                DoubleVector xv = xh.sub(cxh);
+                DoubleVector xl = cxh.sub(xh.sub(xv)).add(x.sub(xv)).add(centerXLo);
+
+                LongVector it = isJulia()
+                        ? iterations(xh, xl, vyh, vyl, startX, zero, startY, zero, range, magnitude, laneSteps)
+                        : iterations(startX, zero, startY, zero, xh, xl, vyh, vyl, range, magnitude, laneSteps);
+
+                Lanes.store(it, buffer, pixel, scatter, lanes);
+                Lanes.store(DoubleVector.fromArray(DS, magnitude, 0), magnitudes, pixel, scatter, lanes);
+
+                pixel += DS.length() * pixelStride;
+            }
+            y += step;
+        }
+        countLanes(laneSteps[0], laneSteps[1]);
+    }
+
+    //The final |z|^2 of every lane goes to magnitude, the lane steps are added to laneSteps.
+    private LongVector iterations(DoubleVector ah, DoubleVector al, DoubleVector bh, DoubleVector bl,
+                                  DoubleVector ch, DoubleVector cl, DoubleVector dh, DoubleVector dl,
+                                  VectorMask<Long> mask, double[] magnitude, long[] laneSteps) {
+        LongVector it = LongVector.zero(LS);
+        DoubleVector mag = ah.mul(ah).add(bh.mul(bh));
+        mask = mask.and(it.lt(maxIterations));
+
+        for (int live = mask.trueCount(); live > 0; live = mask.trueCount()) {
+            laneSteps[0] += live;
+            laneSteps[1] += DS.length();
+            DoubleVector p;
+            DoubleVector e;
+            DoubleVector s;
+            DoubleVector v;
+
+            p = ah.mul(ah);
+            e = ah.lanewise(FMA, ah, p.neg()).add(ah.mul(al).mul(2));
+            DoubleVector a2h = p.add(e);
+            DoubleVector a2l = e.sub(a2h.sub(p));
+
+            p = bh.mul(bh);
+            e = bh.lanewise(FMA, bh, p.neg()).add(bh.mul(bl).mul(2));
+            DoubleVector b2h = p.add(e);
+            DoubleVector b2l = e.sub(b2h.sub(p));
+
+            //escaped lanes keep iterating towards infinity, so the mask only ever loses lanes
+            DoubleVector r2 = a2h.add(b2h);
+            mag = mag.blend(r2, mask.cast(DS));
+            mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(LS));
+            if (!mask.anyTrue()) {
+                break;
+            }
+
+            p = ah.mul(bh);
+            e = ah.lanewise(FMA, bh, p.neg()).add(ah.mul(bl)).add(al.mul(bh));
+            DoubleVector abh = p.add(e);
+            DoubleVector abl = e.sub(abh.sub(p));
+            abh = abh.mul(2);
+            abl = abl.mul(2);
+
+            s = a2h.sub(b2h);
+            v = s.sub(a2h);
+            e = a2h.sub(s.sub(v)).add(b2h.neg().sub(v)).add(a2l).sub(b2l);
+            DoubleVector th = s.add(e);
+            DoubleVector tl = e.sub(th.sub(s));
+
+            s = th.add(ch);
+            v = s.sub(th);
+            e = th.sub(s.sub(v)).add(ch.sub(v)).add(tl).add(cl);
+            ah = s.add(e);
+            al = e.sub(ah.sub(s));
+
+            s = abh.add(dh);
+            v = s.sub(abh);
+            e = abh.sub(s.sub(v)).add(dh.sub(v)).add(abl).add(dl);
+            bh = s.add(e);
+            bl = e.sub(bh.sub(s));
+
+            it = it.add(1, mask);
+            mask = mask.and(it.lt(maxIterations));
+        }
+
+        mag.intoArray(magnitude, 0);
+        return it;
+    }
+}
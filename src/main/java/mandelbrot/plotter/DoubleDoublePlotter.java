@@ -0,0 +1,132 @@
+package mandelbrot.plotter;
+
+import java.math.BigDecimal;
+
+//Mid-depth plotter: every value is an unevaluated sum hi + lo of two doubles (about 32 significant digits),
+//kept exact with the error-free transformations
+//  twoSum:  s = a + b, err = (a - (s - v)) + (b - v) with v = s - a
+//  twoProd: p = a * b, err = fma(a, b, -p)
+//Plot coordinates are double offsets from the double-double view center.
+public class DoubleDoublePlotter extends Plotter {
+
+    protected double centerXHi;
+    protected double centerXLo;
+    protected double centerYHi;
+    protected double centerYLo;
+
+    public DoubleDoublePlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        double y = miny;
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
+            //center + offset, both parts
+            double yh = centerYHi + y;
+            double yv = yh - centerYHi;
+            double yl = (centerYHi - (yh - yv)) + (y - yv) + centerYLo;
+
+            double x = minx;
+            int pixel = offset + i * stride;
+            for (int j = 0; j < tileWidth; ++j) {
+                double xh = centerXHi + x;
+                double xv = xh - centerXHi;
+                double xl = (centerXHi - (xh - xv)) + (x - xv) + centerXLo;
+
+                buffer[pixel] = isJulia()
+                        ? iterations(xh, xl, yh, yl, this.zx, 0, this.zy, 0, pixel)
+                        : iterations(this.zx, 0, this.zy, 0, xh, xl, yh, yl, pixel);
+                pixel += pixelStride;
+
+                x += step;
+            }
+            y += step;
+        }
+    }
+
+    //Iterates z = a + bi from its start value with c = c + di, the final |z|^2 goes to magnitudes[pixel].
+    protected int iterations(double ah, double al, double bh, double bl,
+                             double ch, double cl, double dh, double dl, int pixel) {
+        int iterations = 0;
+        double magnitude = ah * ah + bh * bh;
+
+        while (iterations < maxIterations) {
+            double p;
+            double e;
+            double s;
+            double v;
+
+            //a^2
+            p = ah * ah;
+            e = Math.fma(ah, ah, -p) + 2 * ah * al;
+            double a2h = p + e;
+            double a2l = e - (a2h - p);
+
+            //b^2
+            p = bh * bh;
+            e = Math.fma(bh, bh, -p) + 2 * bh * bl;
+            double b2h = p + e;
+            double b2l = e - (b2h - p);
+
+            magnitude = a2h + b2h;
+            if (magnitude > 4) {
+                break;
+            }
+
+            //2ab, doubling is exact
+            p = ah * bh;
+            e = Math.fma(ah, bh, -p) + ah * bl + al * bh;
+            double abh = p + e;
+            double abl = e - (abh - p);
+            abh *= 2;
+            abl *= 2;
+
+            //a^2 - b^2
+            s = a2h - b2h;
+            v = s - a2h;
+            e = (a2h - (s - v)) + (-b2h - v) + a2l - b2l;
+            double th = s + e;
+            double tl = e - (th - s);
+
+            //a = a^2 - b^2 + c
+            s = th + ch;
+            v = s - th;
+            e = (th - (s - v)) + (ch - v) + tl + cl;
+            ah = s + e;
+            al = e - (ah - s);
+
+            //b = 2ab + d
+            s = abh + dh;
+            v = s - abh;
+            e = (abh - (s - v)) + (dh - v) + abl + dl;
+            bh = s + e;
+            bl = e - (bh - s);
+
+            iterations++;
+        }
+
+        countIterations(iterations);
+        magnitudes[pixel] = (float) magnitude;
+        return iterations;
+    }
+
+    protected boolean isJulia() {
+        return false;
+    }
+
+    @Override
+    public void setReference(BigDecimal x, BigDecimal y, double step) {
+        centerXHi = x.doubleValue();
+        centerXLo = x.subtract(new BigDecimal(centerXHi)).doubleValue();
+        centerYHi = y.doubleValue();
+        centerYLo = y.subtract(new BigDecimal(centerYHi)).doubleValue();
+    }
+
+    @Override
+    public boolean isRelative() {
+        return true;
+    }
+}
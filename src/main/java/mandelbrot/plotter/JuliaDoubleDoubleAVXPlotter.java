@@ -0,0 +1,12 @@
+package mandelbrot.plotter;
+
+public class JuliaDoubleDoubleAVXPlotter extends DoubleDoubleAVXPlotter {
+    public JuliaDoubleDoubleAVXPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    protected boolean isJulia() {
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package mandelbrot.plotter;
+
+public class JuliaDoubleDoublePlotter extends DoubleDoublePlotter {
+    public JuliaDoubleDoublePlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    protected boolean isJulia() {
+        return true;
+    }
+}
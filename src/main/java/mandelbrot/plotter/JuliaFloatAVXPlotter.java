@@ -0,0 +1,13 @@
+package mandelbrot.plotter;
+
+public class JuliaFloatAVXPlotter extends MandelbrotFloatAVXPlotter {
+
+    public JuliaFloatAVXPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    protected boolean isJulia() {
+        return true;
+    }
+}
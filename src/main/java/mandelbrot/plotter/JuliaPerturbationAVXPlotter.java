@@ -0,0 +1,12 @@
+package mandelbrot.plotter;
+
+public class JuliaPerturbationAVXPlotter extends PerturbationAVXPlotter {
+    public JuliaPerturbationAVXPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    protected boolean isJulia() {
+        return true;
+    }
+}
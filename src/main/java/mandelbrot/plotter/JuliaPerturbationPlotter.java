@@ -0,0 +1,12 @@
+package mandelbrot.plotter;
+
+public class JuliaPerturbationPlotter extends PerturbationPlotter {
+    public JuliaPerturbationPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    protected boolean isJulia() {
+        return true;
+    }
+}
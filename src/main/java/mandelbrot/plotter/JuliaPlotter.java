@@ -5,22 +5,11 @@ public class JuliaPlotter extends MandelbrotPlotter {
         super(width, height);
     }
 
-    protected int iterations(double x, double y) {
-        double zx = x;
-        double zy = y;
-        double z2x = zx * zx;
-        double z2y = zy * zy;
-        int iterations = 0;
-
-        while (z2x + z2y <= 4 && iterations < maxIterations) {
-            zy = 2 * zx * zy + this.zy;
-            zx = z2x - z2y + this.zx;
-            z2x = zx * zx;
-            z2y = zy * zy;
-
-            iterations++;
-        }
+    protected int iterations(double x, double y, int pixel) {
+        return iterate(this.zx, this.zy, x, y, 0, pixel);
+    }
 
-        return iterations;
+    protected int resumed(double x, double y, int pixel, int count) {
+        return iterate(this.zx, this.zy, orbitX[pixel], orbitY[pixel], count, pixel);
     }
 }
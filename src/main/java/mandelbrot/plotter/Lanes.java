@@ -0,0 +1,76 @@
+package mandelbrot.plotter;
+
+import jdk.incubator.vector.*;
+
+//Shared pieces of the vector plotters: lane offsets and the bulk stores of iteration counts and |z|^2 into the
+//plotter buffers.
+final class Lanes {
+
+    static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+    //int lanes matching the double lanes one to one, used to write the counts out
+    static final VectorSpecies<Integer> IS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DS.vectorBitSize() / 2));
+    //float lanes matching the double lanes one to one, used to write |z|^2 out
+    static final VectorSpecies<Float> MS =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(DS.vectorBitSize() / 2));
+    static final DoubleVector IOTA = DoubleVector.zero(DS).addIndex(1);
+
+    //float lanes come with int lanes of the same shape, twice as many as the double ones
+    static final VectorSpecies<Float> FS = FloatVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Integer> FIS = IntVector.SPECIES_PREFERRED;
+    static final FloatVector FLOAT_IOTA = FloatVector.zero(FS).addIndex(1);
+
+    private Lanes() {
+    }
+
+    //Index map for rows whose samples land pixelStride pixels apart, or null for dense rows.
+    static int[] scatter(int pixelStride) {
+        return scatter(pixelStride, IS.length());
+    }
+
+    static int[] scatter(int pixelStride, int lanes) {
+        if (pixelStride == 1) {
+            return null;
+        }
+        int[] scatter = new int[lanes];
+        for (int i = 0; i < scatter.length; ++i) {
+            scatter[i] = i * pixelStride;
+        }
+        return scatter;
+    }
+
+    static void store(LongVector it, int[] buffer, int pixel, int[] scatter, VectorMask<Integer> lanes) {
+        store((IntVector) it.convertShape(VectorOperators.L2I, IS, 0), buffer, pixel, scatter, lanes);
+    }
+
+    static void store(IntVector counts, int[] buffer, int pixel, int[] scatter, VectorMask<Integer> lanes) {
+        if (scatter == null) {
+            if (lanes.allTrue()) {
+                counts.intoArray(buffer, pixel);
+            } else {
+                counts.intoArray(buffer, pixel, lanes);
+            }
+        } else {
+            counts.intoArray(buffer, pixel, scatter, 0, lanes);
+        }
+    }
+
+    static void store(DoubleVector magnitude, float[] magnitudes, int pixel, int[] scatter,
+                      VectorMask<Integer> lanes) {
+        store((FloatVector) magnitude.convertShape(VectorOperators.D2F, MS, 0), magnitudes, pixel, scatter,
+                lanes.cast(MS));
+    }
+
+    static void store(FloatVector magnitude, float[] magnitudes, int pixel, int[] scatter,
+                      VectorMask<Float> lanes) {
+        if (scatter == null) {
+            if (lanes.allTrue()) {
+                magnitude.intoArray(magnitudes, pixel);
+            } else {
+                magnitude.intoArray(magnitudes, pixel, lanes);
+            }
+        } else {
+            magnitude.intoArray(magnitudes, pixel, scatter, 0, lanes);
+        }
+    }
+}
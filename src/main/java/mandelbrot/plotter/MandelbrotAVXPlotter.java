@@ -4,8 +4,8 @@ import jdk.incubator.vector.*;
 
 import static jdk.incubator.vector.VectorOperators.FMA;
 
-//JEP 338: Vector API (Incubator)
-public class MandelbrotAVXPlotter extends Plotter {
+//VectorPlotter with double lanes.
+public class MandelbrotAVXPlotter extends VectorPlotter {
 
     protected static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
     protected static final VectorSpecies<Long> LS = LongVector.SPECIES_PREFERRED;
@@ -14,63 +14,223 @@ public class MandelbrotAVXPlotter extends Plotter {
     protected static final DoubleVector FOUR = DoubleVector.broadcast(DS, 4);
 
     public MandelbrotAVXPlotter(int width, int height) {
-        super(width, height);
+        super(width, height, DS.length());
     }
 
     @Override
-    public void plot(double minx, double miny, double step, int sectionWidth, int sectionHeight, int offset) {
-        int upperBoundW = DS.loopBound(sectionWidth);
-        int pixel = offset;
-
-        double y = miny;
-        for (int i = 0; i < sectionHeight; ++i) {
-            double x = minx;
-            DoubleVector vy = DoubleVector.broadcast(DS, y);
-            for (int j = 0; j < upperBoundW; j += DS.length()) {
-                DoubleVector vx = DoubleVector.fromArray(DS, buildValues(x, step, DS.length()), 0);
-                DoubleVector zx = DoubleVector.broadcast(DS, this.zx);
-                DoubleVector zy = DoubleVector.broadcast(DS, this.zy);
-                DoubleVector z2x = zx.mul(zx);
-                DoubleVector z2y = zy.mul(zy);
-                LongVector it = LongVector.zero(LS);
-
-                VectorMask<Long> mask = z2x.add(z2y)
-                        .compare(VectorOperators.LE, FOUR)
-                        .cast(LS)
+    protected Run newRun(double minx, double miny, double step,
+                         int tileWidth, int tileHeight,
+                         int offset, int stride, int pixelStride, int previousMaxIterations) {
+        return new DoubleRun(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride,
+                previousMaxIterations);
+    }
+
+    //Vector form of MandelbrotPlotter.isInterior: lanes in the main cardioid or the period-2 bulb.
+    protected static VectorMask<Double> interior(DoubleVector x, DoubleVector y) {
+        DoubleVector y2 = y.mul(y);
+        DoubleVector xq = x.sub(0.25);
+        DoubleVector q = xq.lanewise(FMA, xq, y2);
+        VectorMask<Double> cardioid = q.mul(q.add(xq)).compare(VectorOperators.LE, y2.mul(0.25));
+        DoubleVector x1 = x.add(1);
+        VectorMask<Double> bulb = x1.lanewise(FMA, x1, y2).compare(VectorOperators.LE, 0.0625);
+        return cardioid.or(bulb);
+    }
+
+    //One lane of interior, the same operations in the same order.
+    protected static boolean interior(double x, double y) {
+        double y2 = y * y;
+        double xq = x - 0.25;
+        double q = Math.fma(xq, xq, y2);
+        double x1 = x + 1;
+        return q * (q + xq) <= y2 * 0.25 || Math.fma(x1, x1, y2) <= 0.0625;
+    }
+
+    private class DoubleRun extends Run {
+        private final DoubleVector steps;
+        private final int[] scatter;
+
+        //lane state between refills
+        private final double[] cx = new double[lanes];
+        private final double[] cy = new double[lanes];
+        private final double[] zx = new double[lanes];
+        private final double[] zy = new double[lanes];
+        private final double[] px = new double[lanes];
+        private final double[] py = new double[lanes];
+        private final double[] magnitude = new double[lanes];
+        private final long[] iterations = new long[lanes];
+
+        //state of the chunk lanes after the first pass
+        private final double[] chunkCx = new double[lanes];
+        private final double[] chunkCy = new double[lanes];
+        private final double[] chunkZx = new double[lanes];
+        private final double[] chunkZy = new double[lanes];
+
+        private DoubleRun(double minx, double miny, double step,
+                          int tileWidth, int tileHeight,
+                          int offset, int stride, int pixelStride, int previousMaxIterations) {
+            super(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride, previousMaxIterations);
+            this.steps = Lanes.IOTA.mul(step);
+            this.scatter = Lanes.scatter(pixelStride);
+        }
+
+        @Override
+        protected void firstPass(int column, int row) {
+            VectorMask<Integer> lanes = Lanes.IS.indexInRange(column, tileWidth);
+            DoubleVector x = pointsX != null
+                    ? DoubleVector.fromArray(DS, pointsX, column, lanes.cast(DS))
+                    : steps.add(minx + column * step);
+            DoubleVector y = pointsY != null
+                    ? DoubleVector.fromArray(DS, pointsY, column, lanes.cast(DS))
+                    : DoubleVector.broadcast(DS, miny + row * step);
+
+            DoubleVector startX = DoubleVector.broadcast(DS, MandelbrotAVXPlotter.this.zx);
+            DoubleVector startY = DoubleVector.broadcast(DS, MandelbrotAVXPlotter.this.zy);
+            DoubleVector vcx = julia ? startX : x;
+            DoubleVector vcy = julia ? startY : y;
+            DoubleVector vzx = julia ? x : startX;
+            DoubleVector vzy = julia ? y : startY;
+            DoubleVector z2x = vzx.mul(vzx);
+            DoubleVector z2y = vzy.mul(vzy);
+            LongVector it = LongVector.zero(LS);
+
+            //lanes only ever stop in the dense pass, so the counts tell how many steps the lanes iterated, once the
+            //lanes the interior test settled are taken out
+            long settled = 0;
+            if (interiorTest) {
+                VectorMask<Long> interior = interior(x, y).cast(LS);
+                it = it.blend(maxIterations, interior);
+                settled = interior.trueCount();
+            }
+
+            DoubleVector mag = z2x.add(z2y);
+            VectorMask<Long> mask = mag
+                    .compare(VectorOperators.LE, FOUR)
+                    .cast(LS)
+                    .and(it.lt(maxIterations))
+                    .and(lanes.cast(LS));
+
+            int n = 0;
+            for (; n < count && mask.anyTrue(); ++n) {
+                vzy = vzx.mul(TWO).lanewise(FMA, vzy, vcy);
+                vzx = z2x.sub(z2y).add(vcx);
+                z2x = vzx.mul(vzx);
+                z2y = vzy.mul(vzy);
+
+                it = it.add(ONE, mask);
+                DoubleVector r2 = z2x.add(z2y);
+                mag = mag.blend(r2, mask.cast(DS));
+                mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(LS))
                         .and(it.lt(maxIterations));
+            }
 
-                while (mask.anyTrue()) {
-                    zy = zx.mul(TWO).lanewise(FMA, zy, vy);//zx.mul(2).mul(zy).add(vy);
-                    zx = z2x.sub(z2y).add(vx);
-                    z2x = zx.mul(zx);
-                    z2y = zy.mul(zy);
+            activeLanes += it.reduceLanes(VectorOperators.ADD) - settled * maxIterations;
+            vectorSteps += n;
 
-                    it = it.add(ONE, mask);
+            //the pixels still running get overwritten once their lane is done with them
+            Lanes.store(it, buffer, pixel, scatter, lanes);
+            Lanes.store(mag, magnitudes, pixel, scatter, lanes);
+            mask.intoArray(running, 0);
+            if (!mask.anyTrue()) {
+                return;
+            }
+
+            vcx.intoArray(chunkCx, 0);
+            vcy.intoArray(chunkCy, 0);
+            vzx.intoArray(chunkZx, 0);
+            vzy.intoArray(chunkZy, 0);
+        }
+
+        @Override
+        protected void queue(int lane, double cx, double cy, double zx, double zy) {
+            chunkCx[lane] = cx;
+            chunkCy[lane] = cy;
+            chunkZx[lane] = zx;
+            chunkZy[lane] = zy;
+        }
+
+        @Override
+        protected double position(double start, int lane) {
+            return start + lane * step;
+        }
+
+        @Override
+        protected boolean isInterior(int lane, double x, double y) {
+            return interior(position(x, lane), y);
+        }
 
-                    mask = z2x.add(z2y)
-                            .compare(VectorOperators.LE, FOUR)
-                            .cast(LS)
-                            .and(it.lt(maxIterations));
-                }
+        @Override
+        protected void load(int lane, int k) {
+            cx[lane] = chunkCx[k];
+            cy[lane] = chunkCy[k];
+            zx[lane] = chunkZx[k];
+            zy[lane] = chunkZy[k];
+            px[lane] = chunkZx[k];
+            py[lane] = chunkZy[k];
+            iterations[lane] = count;
+        }
 
-                for (int idx = 0; idx < it.length(); ++idx) {
-                    buffer[pixel + idx] = (int) it.lane(idx);
-                }
+        @Override
+        protected void save(int lane) {
+            px[lane] = zx[lane];
+            py[lane] = zy[lane];
+        }
 
-                x += step * DS.length();
-                pixel += DS.length();
+        @Override
+        protected void store(int lane, int target) {
+            buffer[target] = (int) iterations[lane];
+            magnitudes[target] = (float) magnitude[lane];
+            //lanes stop right at the limit, so this is the z of the last iteration counted
+            if (iterations[lane] == maxIterations && orbitX != null) {
+                orbitX[target] = zx[lane];
+                orbitY[target] = zy[lane];
             }
-            y += step;
         }
-    }
 
-    protected double[] buildValues(double start, double step, int length) {
-        double[] result = new double[length];
-        double current = start;
-        for (int i = 0; i < length; ++i) {
-            result[i] = current;
-            current += step;
+        @Override
+        protected void iterate(boolean[] busy, int limit, long stop) {
+            //the vectors only live until the next refill, so they are never boxed around the scalar part
+            DoubleVector vcx = DoubleVector.fromArray(DS, cx, 0);
+            DoubleVector vcy = DoubleVector.fromArray(DS, cy, 0);
+            DoubleVector vzx = DoubleVector.fromArray(DS, zx, 0);
+            DoubleVector vzy = DoubleVector.fromArray(DS, zy, 0);
+            DoubleVector vpx = DoubleVector.fromArray(DS, px, 0);
+            DoubleVector vpy = DoubleVector.fromArray(DS, py, 0);
+            //|z|^2 of each lane as of its last iteration while still running
+            DoubleVector mag = DoubleVector.fromArray(DS, magnitude, 0);
+            DoubleVector z2x = vzx.mul(vzx);
+            DoubleVector z2y = vzy.mul(vzy);
+            LongVector it = LongVector.fromArray(LS, iterations, 0);
+            VectorMask<Long> mask = VectorMask.fromArray(LS, busy, 0);
+
+            long clock = this.clock;
+            long active = 0;
+            for (int live = mask.trueCount(); live > limit && clock < stop; live = mask.trueCount()) {
+                active += live;
+                vzy = vzx.mul(TWO).lanewise(FMA, vzy, vcy);
+                vzx = z2x.sub(z2y).add(vcx);
+                z2x = vzx.mul(vzx);
+                z2y = vzy.mul(vzy);
+
+                it = it.add(ONE, mask);
+                //lanes whose orbit came back exactly to the saved point are periodic and never escape
+                it = it.blend(maxIterations, vzx.eq(vpx).and(vzy.eq(vpy)).cast(LS).and(mask));
+
+                DoubleVector r2 = z2x.add(z2y);
+                mag = mag.blend(r2, mask.cast(DS));
+                mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(LS))
+                        .and(it.lt(maxIterations));
+                clock++;
+            }
+            this.clock = clock;
+            activeLanes += active;
+
+            vzx.intoArray(zx, 0);
+            vzy.intoArray(zy, 0);
+            vpx.intoArray(px, 0);
+            vpy.intoArray(py, 0);
+            mag.intoArray(magnitude, 0);
+            it.intoArray(iterations, 0);
+            mask.intoArray(busy, 0);
         }
-        return result;
     }
 }
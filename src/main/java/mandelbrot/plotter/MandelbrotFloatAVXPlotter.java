@@ -0,0 +1,247 @@
+package mandelbrot.plotter;
+
+import jdk.incubator.vector.*;
+
+import static jdk.incubator.vector.VectorOperators.FMA;
+
+//VectorPlotter with float lanes: half the precision for twice the lanes per vector. Only good while the pixel step
+//is far above the float resolution around the view, Content switches to the double plotters past that.
+public class MandelbrotFloatAVXPlotter extends VectorPlotter {
+
+    protected static final VectorSpecies<Float> FS = Lanes.FS;
+    protected static final VectorSpecies<Integer> IS = Lanes.FIS;
+    protected static final IntVector ONE = IntVector.broadcast(IS, 1);
+    protected static final FloatVector TWO = FloatVector.broadcast(FS, 2);
+    protected static final FloatVector FOUR = FloatVector.broadcast(FS, 4);
+
+    public MandelbrotFloatAVXPlotter(int width, int height) {
+        super(width, height, FS.length());
+    }
+
+    @Override
+    protected Run newRun(double minx, double miny, double step,
+                         int tileWidth, int tileHeight,
+                         int offset, int stride, int pixelStride, int previousMaxIterations) {
+        return new FloatRun(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride,
+                previousMaxIterations);
+    }
+
+    //Float form of MandelbrotAVXPlotter.interior.
+    protected static VectorMask<Float> interior(FloatVector x, FloatVector y) {
+        FloatVector y2 = y.mul(y);
+        FloatVector xq = x.sub(0.25f);
+        FloatVector q = xq.lanewise(FMA, xq, y2);
+        VectorMask<Float> cardioid = q.mul(q.add(xq)).compare(VectorOperators.LE, y2.mul(0.25f));
+        FloatVector x1 = x.add(1);
+        VectorMask<Float> bulb = x1.lanewise(FMA, x1, y2).compare(VectorOperators.LE, 0.0625f);
+        return cardioid.or(bulb);
+    }
+
+    //One lane of interior, the same float operations in the same order.
+    protected static boolean interior(float x, float y) {
+        float y2 = y * y;
+        float xq = x - 0.25f;
+        float q = Math.fma(xq, xq, y2);
+        float x1 = x + 1;
+        return q * (q + xq) <= y2 * 0.25f || Math.fma(x1, x1, y2) <= 0.0625f;
+    }
+
+    private class FloatRun extends Run {
+        private final FloatVector steps;
+        private final int[] scatter;
+        //the scattered points of the chunk as floats, converted one chunk at a time
+        private final float[] chunkX = new float[lanes];
+        private final float[] chunkY = new float[lanes];
+
+        //lane state between refills
+        private final float[] cx = new float[lanes];
+        private final float[] cy = new float[lanes];
+        private final float[] zx = new float[lanes];
+        private final float[] zy = new float[lanes];
+        private final float[] px = new float[lanes];
+        private final float[] py = new float[lanes];
+        private final float[] magnitude = new float[lanes];
+        private final int[] iterations = new int[lanes];
+
+        //state of the chunk lanes after the first pass
+        private final float[] chunkCx = new float[lanes];
+        private final float[] chunkCy = new float[lanes];
+        private final float[] chunkZx = new float[lanes];
+        private final float[] chunkZy = new float[lanes];
+
+        private FloatRun(double minx, double miny, double step,
+                         int tileWidth, int tileHeight,
+                         int offset, int stride, int pixelStride, int previousMaxIterations) {
+            super(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride, previousMaxIterations);
+            this.steps = Lanes.FLOAT_IOTA.mul((float) step);
+            this.scatter = Lanes.scatter(pixelStride, FS.length());
+        }
+
+        @Override
+        protected void firstPass(int column, int row) {
+            if (pointsX != null) {
+                for (int i = 0; i < Math.min(chunkX.length, tileWidth - column); ++i) {
+                    chunkX[i] = (float) pointsX[column + i];
+                    chunkY[i] = (float) pointsY[column + i];
+                }
+            }
+            VectorMask<Integer> lanes = IS.indexInRange(column, tileWidth);
+            FloatVector x = pointsX != null
+                    ? FloatVector.fromArray(FS, chunkX, 0, lanes.cast(FS))
+                    : steps.add((float) (minx + column * step));
+            FloatVector y = pointsY != null
+                    ? FloatVector.fromArray(FS, chunkY, 0, lanes.cast(FS))
+                    : FloatVector.broadcast(FS, (float) (miny + row * step));
+
+            FloatVector startX = FloatVector.broadcast(FS, (float) MandelbrotFloatAVXPlotter.this.zx);
+            FloatVector startY = FloatVector.broadcast(FS, (float) MandelbrotFloatAVXPlotter.this.zy);
+            FloatVector vcx = julia ? startX : x;
+            FloatVector vcy = julia ? startY : y;
+            FloatVector vzx = julia ? x : startX;
+            FloatVector vzy = julia ? y : startY;
+            FloatVector z2x = vzx.mul(vzx);
+            FloatVector z2y = vzy.mul(vzy);
+            IntVector it = IntVector.zero(IS);
+
+            //lanes only ever stop in the dense pass, so the counts tell how many steps the lanes iterated, once the
+            //lanes the interior test settled are taken out
+            long settled = 0;
+            if (interiorTest) {
+                VectorMask<Integer> interior = interior(x, y).cast(IS);
+                it = it.blend(maxIterations, interior);
+                settled = interior.trueCount();
+            }
+
+            FloatVector mag = z2x.add(z2y);
+            VectorMask<Integer> mask = mag
+                    .compare(VectorOperators.LE, FOUR)
+                    .cast(IS)
+                    .and(it.lt(maxIterations))
+                    .and(lanes);
+
+            int n = 0;
+            for (; n < count && mask.anyTrue(); ++n) {
+                vzy = vzx.mul(TWO).lanewise(FMA, vzy, vcy);
+                vzx = z2x.sub(z2y).add(vcx);
+                z2x = vzx.mul(vzx);
+                z2y = vzy.mul(vzy);
+
+                it = it.add(ONE, mask);
+                FloatVector r2 = z2x.add(z2y);
+                mag = mag.blend(r2, mask.cast(FS));
+                mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(IS))
+                        .and(it.lt(maxIterations));
+            }
+
+            activeLanes += it.reduceLanes(VectorOperators.ADD) - settled * maxIterations;
+            vectorSteps += n;
+
+            //the pixels still running get overwritten once their lane is done with them
+            Lanes.store(it, buffer, pixel, scatter, lanes);
+            Lanes.store(mag, magnitudes, pixel, scatter, lanes.cast(FS));
+            mask.intoArray(running, 0);
+            if (!mask.anyTrue()) {
+                return;
+            }
+
+            vcx.intoArray(chunkCx, 0);
+            vcy.intoArray(chunkCy, 0);
+            vzx.intoArray(chunkZx, 0);
+            vzy.intoArray(chunkZy, 0);
+        }
+
+        @Override
+        protected void queue(int lane, double cx, double cy, double zx, double zy) {
+            chunkCx[lane] = (float) cx;
+            chunkCy[lane] = (float) cy;
+            chunkZx[lane] = (float) zx;
+            chunkZy[lane] = (float) zy;
+        }
+
+        @Override
+        protected double position(double start, int lane) {
+            //the same float lane offsets the first pass uses
+            return (float) start + lane * (float) step;
+        }
+
+        @Override
+        protected boolean isInterior(int lane, double x, double y) {
+            return interior((float) position(x, lane), (float) y);
+        }
+
+        @Override
+        protected void load(int lane, int k) {
+            cx[lane] = chunkCx[k];
+            cy[lane] = chunkCy[k];
+            zx[lane] = chunkZx[k];
+            zy[lane] = chunkZy[k];
+            px[lane] = chunkZx[k];
+            py[lane] = chunkZy[k];
+            iterations[lane] = count;
+        }
+
+        @Override
+        protected void save(int lane) {
+            px[lane] = zx[lane];
+            py[lane] = zy[lane];
+        }
+
+        @Override
+        protected void store(int lane, int target) {
+            buffer[target] = iterations[lane];
+            magnitudes[target] = magnitude[lane];
+            //lanes stop right at the limit, so this is the z of the last iteration counted
+            if (iterations[lane] == maxIterations && orbitX != null) {
+                orbitX[target] = zx[lane];
+                orbitY[target] = zy[lane];
+            }
+        }
+
+        @Override
+        protected void iterate(boolean[] busy, int limit, long stop) {
+            //the vectors only live until the next refill, so they are never boxed around the scalar part
+            FloatVector vcx = FloatVector.fromArray(FS, cx, 0);
+            FloatVector vcy = FloatVector.fromArray(FS, cy, 0);
+            FloatVector vzx = FloatVector.fromArray(FS, zx, 0);
+            FloatVector vzy = FloatVector.fromArray(FS, zy, 0);
+            FloatVector vpx = FloatVector.fromArray(FS, px, 0);
+            FloatVector vpy = FloatVector.fromArray(FS, py, 0);
+            //|z|^2 of each lane as of its last iteration while still running
+            FloatVector mag = FloatVector.fromArray(FS, magnitude, 0);
+            FloatVector z2x = vzx.mul(vzx);
+            FloatVector z2y = vzy.mul(vzy);
+            IntVector it = IntVector.fromArray(IS, iterations, 0);
+            VectorMask<Integer> mask = VectorMask.fromArray(IS, busy, 0);
+
+            long clock = this.clock;
+            long active = 0;
+            for (int live = mask.trueCount(); live > limit && clock < stop; live = mask.trueCount()) {
+                active += live;
+                vzy = vzx.mul(TWO).lanewise(FMA, vzy, vcy);
+                vzx = z2x.sub(z2y).add(vcx);
+                z2x = vzx.mul(vzx);
+                z2y = vzy.mul(vzy);
+
+                it = it.add(ONE, mask);
+                //lanes whose orbit came back exactly to the saved point are periodic and never escape
+                it = it.blend(maxIterations, vzx.eq(vpx).and(vzy.eq(vpy)).cast(IS).and(mask));
+
+                FloatVector r2 = z2x.add(z2y);
+                mag = mag.blend(r2, mask.cast(FS));
+                mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(IS))
+                        .and(it.lt(maxIterations));
+                clock++;
+            }
+            this.clock = clock;
+            activeLanes += active;
+
+            vzx.intoArray(zx, 0);
+            vzy.intoArray(zy, 0);
+            vpx.intoArray(px, 0);
+            vpy.intoArray(py, 0);
+            mag.intoArray(magnitude, 0);
+            it.intoArray(iterations, 0);
+            mask.intoArray(busy, 0);
+        }
+    }
+}
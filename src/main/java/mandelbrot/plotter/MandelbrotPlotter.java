@@ -7,14 +7,17 @@ public class MandelbrotPlotter extends Plotter {
     }
 
     @Override
-    public void plot(double minx, double miny, double step, int sectionWidth, int sectionHeight, int offset) {
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
         double y = miny;
 
-        int iteration = offset;
-        for (int i = 0; i < sectionHeight; ++i) {
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
             double x = minx;
-            for (int j = 0; j < sectionWidth; ++j) {
-                buffer[iteration++] = iterations(x, y);
+            int iteration = offset + i * stride;
+            for (int j = 0; j < tileWidth; ++j) {
+                buffer[iteration] = iterations(x, y, iteration);
+                iteration += pixelStride;
 
                 x += step;
             }
@@ -22,22 +25,103 @@ public class MandelbrotPlotter extends Plotter {
         }
     }
 
-    protected int iterations(double x, double y) {
-        double zx = this.zx;
-        double zy = this.zy;
+    @Override
+    public void resume(double minx, double miny, double step,
+                       int tileWidth, int tileHeight,
+                       int offset, int stride, int previousMaxIterations) {
+        double y = miny;
+
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
+            double x = minx;
+            int iteration = offset + i * stride;
+            for (int j = 0; j < tileWidth; ++j) {
+                if (buffer[iteration] == previousMaxIterations) {
+                    buffer[iteration] = resumed(x, y, iteration, previousMaxIterations);
+                }
+                iteration++;
+
+                x += step;
+            }
+            y += step;
+        }
+    }
+
+    @Override
+    public boolean isResumable() {
+        return orbitX != null;
+    }
+
+    //Count of the orbit at (x, y), whose final |z|^2 goes to magnitudes[pixel].
+    protected int iterations(double x, double y, int pixel) {
+        if (this.zx == 0 && this.zy == 0 && isInterior(x, y)) {
+            return maxIterations;
+        }
+        return iterate(x, y, this.zx, this.zy, 0, pixel);
+    }
+
+    //Count of the orbit at (x, y) that stopped at count iterations, continued from the z kept for the pixel.
+    protected int resumed(double x, double y, int pixel, int count) {
+        if (this.zx == 0 && this.zy == 0 && isInterior(x, y)) {
+            return maxIterations;
+        }
+        return iterate(x, y, orbitX[pixel], orbitY[pixel], count, pixel);
+    }
+
+    //Iterates z = z^2 + c from z = (zx, zy) after count iterations.
+    protected int iterate(double cx, double cy, double zx, double zy, int count, int pixel) {
         double z2x = zx * zx;
         double z2y = zy * zy;
-        int iterations = 0;
+        int iterations = count;
+
+        //Brent's cycle detection: an orbit that lands exactly on a saved point repeats forever and never escapes
+        double px = zx;
+        double py = zy;
+        int power = 1;
+        int lambda = 0;
+        boolean periodic = false;
 
         while (z2x + z2y <= 4 && iterations < maxIterations) {
-            zy = 2 * zx * zy + y;
-            zx = z2x - z2y + x;
+            zy = 2 * zx * zy + cy;
+            zx = z2x - z2y + cx;
             z2x = zx * zx;
             z2y = zy * zy;
 
             iterations++;
+
+            if (zx == px && zy == py) {
+                periodic = true;
+                break;
+            }
+            if (++lambda == power) {
+                px = zx;
+                py = zy;
+                power <<= 1;
+                lambda = 0;
+            }
+        }
+
+        countIterations(iterations - count);
+        if (periodic) {
+            iterations = maxIterations;
         }
 
+        magnitudes[pixel] = (float) (z2x + z2y);
+        //the pixel has not escaped yet, a higher limit continues from here
+        if (iterations == maxIterations && orbitX != null) {
+            orbitX[pixel] = zx;
+            orbitY[pixel] = zy;
+        }
         return iterations;
     }
+
+    //Main cardioid and period-2 bulb, both entirely inside the set. Only valid when iterating from z = 0.
+    protected static boolean isInterior(double x, double y) {
+        double y2 = y * y;
+        double xq = x - 0.25;
+        double q = xq * xq + y2;
+        if (q * (q + xq) <= 0.25 * y2) {
+            return true;
+        }
+        return (x + 1) * (x + 1) + y2 <= 0.0625;
+    }
 }
@@ -0,0 +1,112 @@
+package mandelbrot.plotter;
+
+import jdk.incubator.vector.*;
+
+//Vector form of the PerturbationPlotter delta loop. After a rebase every lane can sit at a different point of
+//the reference orbit, so the reference is gathered per lane.
+public class PerturbationAVXPlotter extends PerturbationPlotter {
+
+    protected static final VectorSpecies<Double> DS = DoubleVector.SPECIES_PREFERRED;
+    protected static final VectorSpecies<Long> LS = LongVector.SPECIES_PREFERRED;
+    protected static final DoubleVector FOUR = DoubleVector.broadcast(DS, 4);
+
+    public PerturbationAVXPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        ReferenceOrbit orbit = getOrbit();
+        int skip = getSkip(orbit, minx, miny, step, tileWidth, tileHeight);
+
+        double[] rx = orbit.x;
+        double[] ry = orbit.y;
+        int[] index = new int[DS.length()];
+        DoubleVector steps = Lanes.IOTA.mul(step);
+        int[] scatter = Lanes.scatter(pixelStride);
+        long activeLanes = 0;
+        long laneSlots = 0;
+
+        double y = miny;
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
+            int pixel = offset + i * stride;
+            DoubleVector uy = DoubleVector.broadcast(DS, y);
+            for (int j = 0; j < tileWidth; j += DS.length()) {
+                VectorMask<Integer> lanes = Lanes.IS.indexInRange(j, tileWidth);
+                VectorMask<Long> range = lanes.cast(LS);
+                DoubleVector ux = steps.add(minx + j * step);
+
+                DoubleVector u2x = ux.mul(ux).sub(uy.mul(uy));
+                DoubleVector u2y = ux.mul(uy).mul(2);
+                DoubleVector u3x = u2x.mul(ux).sub(u2y.mul(uy));
+                DoubleVector u3y = u2x.mul(uy).add(u2y.mul(ux));
+                DoubleVector dzx = ux.mul(orbit.ax[skip]).sub(uy.mul(orbit.ay[skip]))
+                        .add(u2x.mul(orbit.bx[skip])).sub(u2y.mul(orbit.by[skip]))
+                        .add(u3x.mul(orbit.gx[skip])).sub(u3y.mul(orbit.gy[skip]));
+                DoubleVector dzy = uy.mul(orbit.ax[skip]).add(ux.mul(orbit.ay[skip]))
+                        .add(u2y.mul(orbit.bx[skip])).add(u2x.mul(orbit.by[skip]))
+                        .add(u3y.mul(orbit.gx[skip])).add(u3x.mul(orbit.gy[skip]));
+                DoubleVector dcx = isJulia() ? DoubleVector.zero(DS) : ux;
+                DoubleVector dcy = isJulia() ? DoubleVector.zero(DS) : uy;
+
+                IntVector m = IntVector.broadcast(Lanes.IS, skip);
+                LongVector it = LongVector.broadcast(LS, skip);
+                DoubleVector zx = dzx.add(rx[skip]);
+                DoubleVector zy = dzy.add(ry[skip]);
+
+                DoubleVector mag = zx.mul(zx).add(zy.mul(zy));
+                VectorMask<Long> mask = mag
+                        .compare(VectorOperators.LE, FOUR)
+                        .cast(LS)
+                        .and(it.lt(maxIterations))
+                        .and(range);
+
+                for (int live = mask.trueCount(); live > 0; live = mask.trueCount()) {
+                    activeLanes += live;
+                    laneSlots += DS.length();
+                    VectorMask<Double> active = mask.cast(DS);
+
+                    VectorMask<Double> rebase = zx.mul(zx).add(zy.mul(zy))
+                            .compare(VectorOperators.LT, dzx.mul(dzx).add(dzy.mul(dzy)))
+                            .or(m.eq(orbit.length).cast(DS))
+                            .and(active);
+                    dzx = dzx.blend(zx.sub(rx[0]), rebase);
+                    dzy = dzy.blend(zy.sub(ry[0]), rebase);
+                    m = m.blend(0, rebase.cast(Lanes.IS));
+
+                    m.intoArray(index, 0);
+                    DoubleVector zrx = DoubleVector.fromArray(DS, rx, 0, index, 0);
+                    DoubleVector zry = DoubleVector.fromArray(DS, ry, 0, index, 0);
+
+                    DoubleVector dx = zrx.mul(dzx).sub(zry.mul(dzy)).mul(2)
+                            .add(dzx.mul(dzx)).sub(dzy.mul(dzy)).add(dcx);
+                    dzy = zrx.mul(dzy).add(zry.mul(dzx)).mul(2)
+                            .add(dzx.mul(dzy).mul(2)).add(dcy);
+                    dzx = dx;
+
+                    //lanes that are done stay where they are, so their reference index never runs off the orbit
+                    m = m.add(1, active.cast(Lanes.IS));
+                    it = it.add(1, mask);
+
+                    m.intoArray(index, 0);
+                    zx = DoubleVector.fromArray(DS, rx, 0, index, 0).add(dzx);
+                    zy = DoubleVector.fromArray(DS, ry, 0, index, 0).add(dzy);
+
+                    DoubleVector r2 = zx.mul(zx).add(zy.mul(zy));
+                    mag = mag.blend(r2, mask.cast(DS));
+                    mask = mask.and(r2.compare(VectorOperators.LE, FOUR).cast(LS))
+                            .and(it.lt(maxIterations));
+                }
+
+                Lanes.store(it, buffer, pixel, scatter, lanes);
+                Lanes.store(mag, magnitudes, pixel, scatter, lanes);
+
+                pixel += DS.length() * pixelStride;
+            }
+            y += step;
+        }
+        countLanes(activeLanes, laneSlots);
+    }
+}
@@ -0,0 +1,145 @@
+package mandelbrot.plotter;
+
+import java.math.BigDecimal;
+
+//Deep zoom plotter: only the view center is iterated in BigDecimal (see ReferenceOrbit), every pixel is iterated
+//as a double precision delta from that reference orbit:
+//  delta(n + 1) = 2 Z(n) delta(n) + delta(n)^2 + dc
+//When a pixel's orbit comes closer to 0 than its delta (the classic glitch) or the reference escapes first,
+//the delta is rebased onto the start of the reference orbit.
+//Plot coordinates are offsets from the reference, so the pixels keep their precision however deep the zoom.
+public class PerturbationPlotter extends Plotter {
+
+    //digits of the reference orbit on top of what the pixel step needs
+    private static final int EXTRA_DIGITS = 20;
+    //largest |g(n) u^3| / |a(n) u| the series approximation may neglect
+    private static final double SERIES_TOLERANCE = 1e-9;
+
+    private BigDecimal referenceX = BigDecimal.ZERO;
+    private BigDecimal referenceY = BigDecimal.ZERO;
+    private int digits = EXTRA_DIGITS;
+    private boolean seriesApproximation = true;
+
+    private ReferenceOrbit orbit;
+
+    public PerturbationPlotter(int width, int height) {
+        super(width, height);
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        ReferenceOrbit orbit = getOrbit();
+        int skip = getSkip(orbit, minx, miny, step, tileWidth, tileHeight);
+
+        double y = miny;
+        for (int i = 0; i < tileHeight && !isCancelled(); ++i) {
+            double x = minx;
+            int pixel = offset + i * stride;
+            for (int j = 0; j < tileWidth; ++j) {
+                buffer[pixel] = iterations(orbit, skip, x, y, pixel);
+                pixel += pixelStride;
+
+                x += step;
+            }
+            y += step;
+        }
+    }
+
+    //Count of the pixel at offset (ux, uy) from the reference, whose final |z|^2 goes to magnitudes[pixel].
+    protected int iterations(ReferenceOrbit orbit, int skip, double ux, double uy, int pixel) {
+        double[] rx = orbit.x;
+        double[] ry = orbit.y;
+        double dcx = isJulia() ? 0 : ux;
+        double dcy = isJulia() ? 0 : uy;
+
+        double u2x = ux * ux - uy * uy;
+        double u2y = 2 * ux * uy;
+        double u3x = u2x * ux - u2y * uy;
+        double u3y = u2x * uy + u2y * ux;
+        double dzx = orbit.ax[skip] * ux - orbit.ay[skip] * uy
+                + orbit.bx[skip] * u2x - orbit.by[skip] * u2y
+                + orbit.gx[skip] * u3x - orbit.gy[skip] * u3y;
+        double dzy = orbit.ax[skip] * uy + orbit.ay[skip] * ux
+                + orbit.bx[skip] * u2y + orbit.by[skip] * u2x
+                + orbit.gx[skip] * u3y + orbit.gy[skip] * u3x;
+
+        int m = skip;
+        int iterations = skip;
+        double zx = rx[m] + dzx;
+        double zy = ry[m] + dzy;
+
+        while (zx * zx + zy * zy <= 4 && iterations < maxIterations) {
+            if (m == orbit.length || zx * zx + zy * zy < dzx * dzx + dzy * dzy) {
+                dzx = zx - rx[0];
+                dzy = zy - ry[0];
+                m = 0;
+            }
+
+            double dx = 2 * (rx[m] * dzx - ry[m] * dzy) + dzx * dzx - dzy * dzy + dcx;
+            dzy = 2 * (rx[m] * dzy + ry[m] * dzx) + 2 * dzx * dzy + dcy;
+            dzx = dx;
+
+            m++;
+            iterations++;
+
+            zx = rx[m] + dzx;
+            zy = ry[m] + dzy;
+        }
+
+        countIterations(iterations - skip);
+        magnitudes[pixel] = (float) (zx * zx + zy * zy);
+        return iterations;
+    }
+
+    //How many iterations the whole tile can take from the series instead of iterating them.
+    protected int getSkip(ReferenceOrbit orbit, double minx, double miny, double step, int tileWidth, int tileHeight) {
+        if (!seriesApproximation) {
+            return 0;
+        }
+
+        double maxx = minx + (tileWidth - 1) * step;
+        double maxy = miny + (tileHeight - 1) * step;
+        double radius = Math.max(
+                Math.max(Math.hypot(minx, miny), Math.hypot(maxx, miny)),
+                Math.max(Math.hypot(minx, maxy), Math.hypot(maxx, maxy)));
+        return orbit.skip(radius, SERIES_TOLERANCE);
+    }
+
+    protected synchronized ReferenceOrbit getOrbit() {
+        BigDecimal startX = BigDecimal.valueOf(zx);
+        BigDecimal startY = BigDecimal.valueOf(zy);
+
+        //Mandelbrot iterates the center as c from the start point, Julia iterates it as z with the start point as c
+        BigDecimal z0x = isJulia() ? referenceX : startX;
+        BigDecimal z0y = isJulia() ? referenceY : startY;
+        BigDecimal cx = isJulia() ? startX : referenceX;
+        BigDecimal cy = isJulia() ? startY : referenceY;
+
+        if (orbit == null || !orbit.matches(z0x, z0y, cx, cy, maxIterations, digits)) {
+            orbit = new ReferenceOrbit(z0x, z0y, cx, cy, maxIterations, digits, isJulia());
+        }
+        return orbit;
+    }
+
+    protected boolean isJulia() {
+        return false;
+    }
+
+    @Override
+    public void setReference(BigDecimal x, BigDecimal y, double step) {
+        referenceX = x;
+        referenceY = y;
+        digits = EXTRA_DIGITS + (int) Math.max(0, Math.ceil(-Math.log10(step)));
+    }
+
+    @Override
+    public boolean isRelative() {
+        return true;
+    }
+
+    public void setSeriesApproximation(boolean seriesApproximation) {
+        this.seriesApproximation = seriesApproximation;
+    }
+}
@@ -1,26 +1,124 @@
 package mandelbrot.plotter;
 
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
 public abstract class Plotter {
 
+    protected final int width;
+    protected final int height;
     protected final int[] buffer;
+    //|z|^2 of every pixel's orbit when its count stopped, for smooth colouring of the escaped ones
+    protected final float[] magnitudes;
+    //final z of the pixels that reached maxIterations, only written by plotters that can resume them
+    protected double[] orbitX;
+    protected double[] orbitY;
 
     protected int maxIterations;
 
     protected double zx;
     protected double zy;
 
+    private BooleanSupplier cancellation = () -> false;
+
+    //iterations actually executed, vector plotters also count every step of their lanes, and the steps in which
+    //the lane still had a pixel iterating
+    private final LongAdder iterations = new LongAdder();
+    private final LongAdder activeLanes = new LongAdder();
+    private final LongAdder laneSlots = new LongAdder();
+
     protected Plotter(int width, int height) {
-        this.buffer = new int[width * height];
+        this(width, height, new int[width * height], new float[width * height]);
+    }
+
+    //Lets a plotter that wraps another one write straight into the wrapped plotter's buffers.
+    protected Plotter(int width, int height, int[] buffer, float[] magnitudes) {
+        this.width = width;
+        this.height = height;
+        this.buffer = buffer;
+        this.magnitudes = magnitudes;
     }
 
+    //Plots a tileWidth x tileHeight tile whose top-left pixel is at buffer[offset]; rows are stride pixels apart.
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride) {
+        plot(minx, miny, step, tileWidth, tileHeight, offset, stride, 1);
+    }
+
+    //Same as above, but neighbouring samples of a row land pixelStride pixels apart, which lets a sparse grid
+    //of samples (step apart in the plane) be plotted straight into the full frame.
     public abstract void plot(double minx, double miny, double step,
-                               int sectionWidth, int sectionHeight,
-                               int offset);
+                              int tileWidth, int tileHeight,
+                              int offset, int stride, int pixelStride);
+
+    //Plots count points anywhere in the plane, (x[i], y[i]) into buffer[offset + i], placed the way plot takes
+    //minx and miny. Vector plotters fill their lanes with them like with the pixels of a tile.
+    public void plot(double[] x, double[] y, int count, int offset) {
+        for (int i = 0; i < count && !isCancelled(); ++i) {
+            plot(x[i], y[i], 0, 1, 1, offset + i, 1);
+        }
+    }
+
+    //Continues the pixels of a plotted tile that stopped at previousMaxIterations up to the current maxIterations,
+    //from the orbits kept when they were plotted. The rest of the tile is left as it is. Plotters that keep no
+    //orbits (isResumable is false) plot the whole tile again, which comes to the same counts.
+    public void resume(double minx, double miny, double step,
+                       int tileWidth, int tileHeight,
+                       int offset, int stride, int previousMaxIterations) {
+        plot(minx, miny, step, tileWidth, tileHeight, offset, stride);
+    }
+
+    //Moves the plotted image so that pixel (x, y) takes the value pixel (x + dx, y + dy) had.
+    //The |dx| columns and |dy| rows shifted in from outside keep stale values and have to be plotted again.
+    public void shift(int dx, int dy) {
+        int columns = width - Math.abs(dx);
+        int from = Math.max(dx, 0);
+        int to = Math.max(-dx, 0);
+
+        //walk rows in the direction that never overwrites a row before it has been copied
+        if (dy >= 0) {
+            for (int y = 0; y < height - dy; ++y) {
+                System.arraycopy(buffer, (y + dy) * width + from, buffer, y * width + to, columns);
+                System.arraycopy(magnitudes, (y + dy) * width + from, magnitudes, y * width + to, columns);
+                shiftOrbits((y + dy) * width + from, y * width + to, columns);
+            }
+        } else {
+            for (int y = height - 1; y >= -dy; --y) {
+                System.arraycopy(buffer, (y + dy) * width + from, buffer, y * width + to, columns);
+                System.arraycopy(magnitudes, (y + dy) * width + from, magnitudes, y * width + to, columns);
+                shiftOrbits((y + dy) * width + from, y * width + to, columns);
+            }
+        }
+    }
+
+    private void shiftOrbits(int from, int to, int length) {
+        if (orbitX != null) {
+            System.arraycopy(orbitX, from, orbitX, to, length);
+            System.arraycopy(orbitY, from, orbitY, to, length);
+        }
+    }
 
     public int[] getBuffer() {
         return buffer;
     }
 
+    public float[] getMagnitudes() {
+        return magnitudes;
+    }
+
+    //Where plotters that can resume keep their orbits, null to keep none. Plotters may share the arrays, then
+    //only the last one that plotted can resume.
+    public void setOrbits(double[] orbitX, double[] orbitY) {
+        this.orbitX = orbitX;
+        this.orbitY = orbitY;
+    }
+
+    public boolean isResumable() {
+        return false;
+    }
+
     public void setMaxIterations(int maxIterations) {
         this.maxIterations = maxIterations;
     }
@@ -29,4 +127,49 @@ public abstract class Plotter {
         this.zx = x;
         this.zy = y;
     }
+
+    //Exact view center, for plotters that need more than double precision to place their pixels.
+    public void setReference(BigDecimal x, BigDecimal y, double step) {
+    }
+
+    //Whether plot takes minx and miny as offsets from the reference instead of absolute coordinates.
+    public boolean isRelative() {
+        return false;
+    }
+
+    //Checked between rows, so a stale frame stops within one row of work.
+    public void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    protected boolean isCancelled() {
+        return cancellation.getAsBoolean();
+    }
+
+    //Called by scalar plotters once per pixel. Pixels the interior test, cycle detection or a fill settled and
+    //iterations the series approximation skipped were never executed and are not counted.
+    protected void countIterations(long executed) {
+        iterations.add(executed);
+    }
+
+    //Called once per plot by vector plotters, never per step. Every active lane step is one executed iteration.
+    protected void countLanes(long active, long slots) {
+        iterations.add(active);
+        activeLanes.add(active);
+        laneSlots.add(slots);
+    }
+
+    //Iterations executed since the plotter was made.
+    public long getIterations() {
+        return iterations.sum();
+    }
+
+    //Lane steps since the plotter was made, their ratio is how well the lanes were kept busy.
+    public long getActiveLanes() {
+        return activeLanes.sum();
+    }
+
+    public long getLaneSlots() {
+        return laneSlots.sum();
+    }
 }
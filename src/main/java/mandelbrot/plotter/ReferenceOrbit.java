@@ -0,0 +1,110 @@
+package mandelbrot.plotter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+//Orbit of one point iterated in BigDecimal and rounded to doubles, the reference every other pixel of a
+//perturbation frame is iterated against. Also holds the coefficients a, b and g of the cubic series
+//delta(n) ~ a(n) u + b(n) u^2 + g(n) u^3, where u is the pixel's offset from the reference.
+class ReferenceOrbit {
+
+    private final BigDecimal z0x;
+    private final BigDecimal z0y;
+    private final BigDecimal cx;
+    private final BigDecimal cy;
+    private final int maxIterations;
+    private final int digits;
+
+    //Z(0) .. Z(length); Z(length) is either the first escaped point or Z(maxIterations)
+    final double[] x;
+    final double[] y;
+    final int length;
+
+    final double[] ax;
+    final double[] ay;
+    final double[] bx;
+    final double[] by;
+    final double[] gx;
+    final double[] gy;
+
+    ReferenceOrbit(BigDecimal z0x, BigDecimal z0y, BigDecimal cx, BigDecimal cy,
+                   int maxIterations, int digits, boolean julia) {
+        this.z0x = z0x;
+        this.z0y = z0y;
+        this.cx = cx;
+        this.cy = cy;
+        this.maxIterations = maxIterations;
+        this.digits = digits;
+
+        MathContext mc = new MathContext(digits);
+        double[] x = new double[maxIterations + 1];
+        double[] y = new double[maxIterations + 1];
+
+        BigDecimal zx = z0x;
+        BigDecimal zy = z0y;
+        int n = 0;
+        while (true) {
+            x[n] = zx.doubleValue();
+            y[n] = zy.doubleValue();
+            if (n == maxIterations || x[n] * x[n] + y[n] * y[n] > 4) {
+                break;
+            }
+
+            BigDecimal z2x = zx.multiply(zx, mc);
+            BigDecimal z2y = zy.multiply(zy, mc);
+            zy = zx.multiply(zy, mc).multiply(BigDecimal.valueOf(2)).add(cy, mc);
+            zx = z2x.subtract(z2y).add(cx, mc);
+            n++;
+        }
+
+        this.x = x;
+        this.y = y;
+        this.length = n;
+
+        ax = new double[n + 1];
+        ay = new double[n + 1];
+        bx = new double[n + 1];
+        by = new double[n + 1];
+        gx = new double[n + 1];
+        gy = new double[n + 1];
+
+        //Mandelbrot pixels share Z(0) and differ in c; Julia pixels differ in Z(0) itself
+        ax[0] = julia ? 1 : 0;
+        double linear = julia ? 0 : 1;
+        for (int i = 0; i < n; ++i) {
+            double tx = 2 * x[i];
+            double ty = 2 * y[i];
+            ax[i + 1] = tx * ax[i] - ty * ay[i] + linear;
+            ay[i + 1] = tx * ay[i] + ty * ax[i];
+            bx[i + 1] = tx * bx[i] - ty * by[i] + ax[i] * ax[i] - ay[i] * ay[i];
+            by[i + 1] = tx * by[i] + ty * bx[i] + 2 * ax[i] * ay[i];
+            gx[i + 1] = tx * gx[i] - ty * gy[i] + 2 * (ax[i] * bx[i] - ay[i] * by[i]);
+            gy[i + 1] = tx * gy[i] + ty * gx[i] + 2 * (ax[i] * by[i] + ay[i] * bx[i]);
+        }
+    }
+
+    boolean matches(BigDecimal z0x, BigDecimal z0y, BigDecimal cx, BigDecimal cy, int maxIterations, int digits) {
+        return this.maxIterations == maxIterations
+                && this.digits == digits
+                && this.z0x.compareTo(z0x) == 0
+                && this.z0y.compareTo(z0y) == 0
+                && this.cx.compareTo(cx) == 0
+                && this.cy.compareTo(cy) == 0;
+    }
+
+    //Number of iterations the series can skip for offsets up to radius: stops as soon as the cubic term is no
+    //longer negligible next to the linear one.
+    int skip(double radius, double tolerance) {
+        double r2 = radius * radius;
+        int n = 0;
+        while (n + 1 < length) {
+            double a = Math.hypot(ax[n + 1], ay[n + 1]);
+            double g = Math.hypot(gx[n + 1], gy[n + 1]);
+            if (!(g * r2 <= tolerance * a)) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+}
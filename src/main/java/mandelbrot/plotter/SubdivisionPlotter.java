@@ -0,0 +1,190 @@
+package mandelbrot.plotter;
+
+import java.math.BigDecimal;
+import java.util.function.BooleanSupplier;
+
+//Mariani-Silver subdivision: plots the border of a rectangle with the wrapped plotter and, when the whole border
+//escapes after the same number of iterations, fills the inside without iterating it. Otherwise the inside is cut
+//into four rectangles which are done the same way. The recursion stays on the thread that plots the tile: the tile
+//workers already keep every core busy, a pool of its own underneath them would only have them wait on it.
+public class SubdivisionPlotter extends Plotter {
+
+    //rectangles narrower or shorter than this are plotted directly
+    private static final int MIN_SIZE = 6;
+
+    private final Plotter plotter;
+
+    public SubdivisionPlotter(Plotter plotter) {
+        super(plotter.width, plotter.height, plotter.buffer, plotter.magnitudes);
+        this.plotter = plotter;
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        Tile tile = new Tile(minx, miny, step, offset, stride, pixelStride);
+        new Rectangle(tile, 0, 0, tileWidth, tileHeight).compute();
+    }
+
+    //scattered points have no rectangles to fill
+    @Override
+    public void plot(double[] x, double[] y, int count, int offset) {
+        plotter.plot(x, y, count, offset);
+    }
+
+    @Override
+    public void setMaxIterations(int maxIterations) {
+        super.setMaxIterations(maxIterations);
+        plotter.setMaxIterations(maxIterations);
+    }
+
+    @Override
+    public void setZ(double x, double y) {
+        super.setZ(x, y);
+        plotter.setZ(x, y);
+    }
+
+    @Override
+    public void setReference(BigDecimal x, BigDecimal y, double step) {
+        plotter.setReference(x, y, step);
+    }
+
+    @Override
+    public boolean isRelative() {
+        return plotter.isRelative();
+    }
+
+    @Override
+    public long getIterations() {
+        return plotter.getIterations();
+    }
+
+    @Override
+    public long getActiveLanes() {
+        return plotter.getActiveLanes();
+    }
+
+    @Override
+    public long getLaneSlots() {
+        return plotter.getLaneSlots();
+    }
+
+    @Override
+    public void setCancellation(BooleanSupplier cancellation) {
+        super.setCancellation(cancellation);
+        plotter.setCancellation(cancellation);
+    }
+
+    private static class Tile {
+        private final double minx;
+        private final double miny;
+        private final double step;
+        private final int offset;
+        private final int stride;
+        private final int pixelStride;
+
+        private Tile(double minx, double miny, double step, int offset, int stride, int pixelStride) {
+            this.minx = minx;
+            this.miny = miny;
+            this.step = step;
+            this.offset = offset;
+            this.stride = stride;
+            this.pixelStride = pixelStride;
+        }
+
+        private int index(int x, int y) {
+            return offset + y * stride + x * pixelStride;
+        }
+    }
+
+    private class Rectangle {
+        private final Tile tile;
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        private Rectangle(Tile tile, int x, int y, int width, int height) {
+            this.tile = tile;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        private void compute() {
+            if (width <= 0 || height <= 0 || isCancelled()) {
+                return;
+            }
+
+            if (width < MIN_SIZE || height < MIN_SIZE) {
+                plot(x, y, width, height);
+                return;
+            }
+
+            plot(x, y, width, 1);
+            plot(x, y + height - 1, width, 1);
+            plot(x, y + 1, 1, height - 2);
+            plot(x + width - 1, y + 1, 1, height - 2);
+
+            int value = buffer[tile.index(x, y)];
+            if (isUniform(value)) {
+                fill(value);
+                return;
+            }
+
+            //the border is done, only the inside is left to split
+            int ix = x + 1;
+            int iy = y + 1;
+            int iw = width - 2;
+            int ih = height - 2;
+            int hw = iw / 2;
+            int hh = ih / 2;
+
+            new Rectangle(tile, ix, iy, hw, hh).compute();
+            new Rectangle(tile, ix + hw, iy, iw - hw, hh).compute();
+            new Rectangle(tile, ix, iy + hh, hw, ih - hh).compute();
+            new Rectangle(tile, ix + hw, iy + hh, iw - hw, ih - hh).compute();
+        }
+
+        private void plot(int px, int py, int w, int h) {
+            plotter.plot(tile.minx + px * tile.step, tile.miny + py * tile.step, tile.step,
+                    w, h,
+                    tile.index(px, py), tile.stride, tile.pixelStride);
+        }
+
+        private boolean isUniform(int value) {
+            int top = tile.index(x, y);
+            int bottom = tile.index(x, y + height - 1);
+            for (int i = 0; i < width; ++i) {
+                if (buffer[top + i * tile.pixelStride] != value || buffer[bottom + i * tile.pixelStride] != value) {
+                    return false;
+                }
+            }
+
+            int left = tile.index(x, y);
+            int right = tile.index(x + width - 1, y);
+            for (int i = 1; i < height - 1; ++i) {
+                if (buffer[left + i * tile.stride] != value || buffer[right + i * tile.stride] != value) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void fill(int value) {
+            for (int i = 1; i < height - 1; ++i) {
+                int pixel = tile.index(x + 1, y + i);
+                //|z|^2 goes linearly from the left border to the right one, so smooth colouring stays smooth
+                float left = magnitudes[tile.index(x, y + i)];
+                float right = magnitudes[tile.index(x + width - 1, y + i)];
+                for (int j = 1; j < width - 1; ++j) {
+                    buffer[pixel] = value;
+                    magnitudes[pixel] = left + (right - left) * j / (width - 1);
+                    pixel += tile.pixelStride;
+                }
+            }
+        }
+    }
+}
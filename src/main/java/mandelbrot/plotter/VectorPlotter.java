@@ -0,0 +1,264 @@
+package mandelbrot.plotter;
+
+import java.util.Arrays;
+
+//JEP 338: Vector API (Incubator)
+//Every lane works on its own pixel with its own iteration counter. The pixels of the tile form a queue and
+//lanes whose pixel escaped are refilled from it, so fast pixels never wait for the slowest lane of their vector.
+//The queue, the refills and the cycle detection schedule are the same for any lane type and live here; the
+//subclasses keep the lane state in arrays of their element type and do the vector arithmetic on it.
+public abstract class VectorPlotter extends Plotter {
+
+    //iterations every pixel gets in a dense vector of its row before it is queued (one less than maxIterations
+    //below that, so only the lanes stop at the limit). Most pixels escape within them, which is cheaper than
+    //passing through the queue.
+    protected static final int FIRST_PASS = 32;
+
+    protected final int lanes;
+    //lanes are refilled once this many of them sit idle, a refill goes through the lane arrays
+    private final int refill;
+
+    protected VectorPlotter(int width, int height, int lanes) {
+        super(width, height);
+        this.lanes = lanes;
+        this.refill = Math.max(1, lanes / 2);
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        newRun(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride, -1).run();
+    }
+
+    @Override
+    public void plot(double[] x, double[] y, int count, int offset) {
+        Run run = newRun(0, 0, 0, count, 1, offset, 0, 1, -1);
+        run.pointsX = x;
+        run.pointsY = y;
+        run.run();
+    }
+
+    @Override
+    public void resume(double minx, double miny, double step,
+                       int tileWidth, int tileHeight,
+                       int offset, int stride, int previousMaxIterations) {
+        newRun(minx, miny, step, tileWidth, tileHeight, offset, stride, 1, previousMaxIterations).run();
+    }
+
+    @Override
+    public boolean isResumable() {
+        return orbitX != null;
+    }
+
+    protected boolean isJulia() {
+        return false;
+    }
+
+    //previousMaxIterations is -1 for a plot, the limit the pixels stopped at for a resume
+    protected abstract Run newRun(double minx, double miny, double step,
+                                  int tileWidth, int tileHeight,
+                                  int offset, int stride, int pixelStride, int previousMaxIterations);
+
+    //One plot: the pixels of a tile, a row chunk of lanes pixels at a time, and the lanes they are fed to. A chunk
+    //first runs FIRST_PASS iterations as one dense vector and writes out the pixels that are done, the ones still
+    //running are queued for the lanes. When resuming, the chunk's pixels that stopped at the previous limit are
+    //queued with their kept orbits. Scattered points make a tile of one row, their lanes are loaded from the
+    //points instead of stepping along it.
+    protected abstract class Run {
+        protected final double minx;
+        protected final double miny;
+        protected final double step;
+        protected final int tileWidth;
+        protected final int offset;
+        protected final int stride;
+        protected final int pixelStride;
+        protected final boolean julia;
+        protected final boolean interiorTest;
+        //iterations every queued pixel has done
+        protected final int count;
+        //the points of a one row tile of scattered points, null for the pixels of a tile
+        protected double[] pointsX;
+        protected double[] pointsY;
+
+        private final int tileHeight;
+        private final int previousMaxIterations;
+
+        //next chunk
+        private int row;
+        private int column;
+
+        //first pixel of the last chunk; running tells its lanes still iterating after the first pass, order holds
+        //the ones still to be taken
+        protected int pixel;
+        protected final boolean[] running = new boolean[lanes];
+        private final int[] order = new int[lanes];
+        private int pending;
+
+        //lane steps that had a pixel, steps of the first passes, steps of the refill loop
+        protected long activeLanes;
+        protected long vectorSteps;
+        protected long clock;
+
+        protected Run(double minx, double miny, double step,
+                      int tileWidth, int tileHeight,
+                      int offset, int stride, int pixelStride, int previousMaxIterations) {
+            this.minx = minx;
+            this.miny = miny;
+            this.step = step;
+            this.tileWidth = tileWidth;
+            this.tileHeight = tileHeight;
+            this.offset = offset;
+            this.stride = stride;
+            this.pixelStride = pixelStride;
+            this.julia = isJulia();
+            this.interiorTest = !julia && VectorPlotter.this.zx == 0 && VectorPlotter.this.zy == 0;
+            this.previousMaxIterations = previousMaxIterations;
+            this.count = previousMaxIterations >= 0
+                    ? previousMaxIterations
+                    : Math.min(FIRST_PASS, maxIterations - 1);
+        }
+
+        //Dense first pass of the lanes pixels from (column, row) of the tile on; the pixels that are done go to the
+        //buffers, the state of the ones still running is kept as chunk lanes and flagged in running.
+        protected abstract void firstPass(int column, int row);
+
+        //Keeps the given c and z of a resumed pixel as the state of its chunk lane.
+        protected abstract void queue(int lane, double cx, double cy, double zx, double zy);
+
+        //Plane coordinate of the given lane of a chunk that starts at start, rounded like the first pass does.
+        protected abstract double position(double start, int lane);
+
+        //Whether the given lane of a chunk that starts at (x, y) is in the main cardioid or the period-2 bulb, with
+        //the arithmetic of the first pass; near their edges other arithmetic settles other pixels.
+        protected abstract boolean isInterior(int lane, double x, double y);
+
+        //Moves chunk lane k into lane, its count at count.
+        protected abstract void load(int lane, int k);
+
+        //Brent's cycle detection: makes the lane's z the point to come back to.
+        protected abstract void save(int lane);
+
+        //Writes the count and |z|^2 of the lane's finished pixel, and its z when it stopped at the limit.
+        protected abstract void store(int lane, int target);
+
+        //Iterates the busy lanes until no more than limit of them are busy or the clock reaches stop, clearing the
+        //flags of the lanes that finished. Adds the steps to clock and the busy lane steps to activeLanes.
+        protected abstract void iterate(boolean[] busy, int limit, long stop);
+
+        private void run() {
+            //buffer index of every lane's pixel or -1 for an empty lane
+            int[] target = new int[lanes];
+            Arrays.fill(target, -1);
+            boolean[] busy = new boolean[lanes];
+            //clock value when each lane's count was 0, the scalar side of the per lane cycle detection schedule
+            long[] loadedAt = new long[lanes];
+
+            while (!isCancelled()) {
+                boolean any = false;
+                for (int lane = 0; lane < lanes; ++lane) {
+                    if (busy[lane]) {
+                        //the point to come back to is saved whenever the count of the lane reaches a power of two
+                        long n = clock - loadedAt[lane];
+                        if ((n & (n - 1)) == 0) {
+                            save(lane);
+                        }
+                        any = true;
+                        continue;
+                    }
+                    if (target[lane] >= 0) {
+                        store(lane, target[lane]);
+                        target[lane] = -1;
+                    }
+                    if (!fill()) {
+                        continue;
+                    }
+
+                    int k = order[--pending];
+                    load(lane, k);
+                    busy[lane] = true;
+                    target[lane] = pixel + k * pixelStride;
+                    loadedAt[lane] = clock - count;
+                    any = true;
+                }
+
+                if (!any) {
+                    break;
+                }
+
+                //iterate until enough lanes are idle to be worth a refill, or until the last pixels are done,
+                //or until a lane has to save its point or reaches the limit
+                iterate(busy, hasNext() ? lanes - refill : 0, nextStop(loadedAt, busy));
+            }
+            countLanes(activeLanes, (clock + vectorSteps) * lanes);
+        }
+
+        //Clock value of the next time the count of a busy lane reaches a power of two or maxIterations.
+        private long nextStop(long[] loadedAt, boolean[] busy) {
+            long next = Long.MAX_VALUE;
+            for (int lane = 0; lane < lanes; ++lane) {
+                if (busy[lane]) {
+                    long save = Math.max(1, Long.highestOneBit(clock - loadedAt[lane]) << 1);
+                    next = Math.min(next, loadedAt[lane] + Math.min(save, maxIterations));
+                }
+            }
+            return next;
+        }
+
+        private boolean hasNext() {
+            return pending > 0 || row < tileHeight;
+        }
+
+        //Runs first passes until some pixel is left for the lanes; false once the tile is exhausted.
+        private boolean fill() {
+            while (pending == 0 && row < tileHeight) {
+                pixel = offset + row * stride + column * pixelStride;
+                if (previousMaxIterations >= 0) {
+                    unfinished();
+                } else {
+                    firstPass(column, row);
+                    for (int lane = lanes - 1; lane >= 0; --lane) {
+                        if (running[lane]) {
+                            order[pending++] = lane;
+                        }
+                    }
+                }
+
+                column += lanes;
+                if (column >= tileWidth) {
+                    column = 0;
+                    row++;
+                }
+            }
+            return pending > 0;
+        }
+
+        private void unfinished() {
+            int chunk = Math.min(lanes, tileWidth - column);
+            double y = position(miny + row * step, 0);
+            double x = minx + column * step;
+
+            for (int lane = chunk - 1; lane >= 0; --lane) {
+                int target = pixel + lane * pixelStride;
+                if (buffer[target] != previousMaxIterations) {
+                    continue;
+                }
+                //the interior test settles pixels without writing their orbit, so it goes before the kept one
+                double px = position(x, lane);
+                if (interiorTest && isInterior(lane, x, miny + row * step)) {
+                    buffer[target] = maxIterations;
+                    continue;
+                }
+                //pixels that escaped right at the previous limit are done as well
+                double kx = orbitX[target];
+                double ky = orbitY[target];
+                if (kx * kx + ky * ky > 4) {
+                    continue;
+                }
+
+                queue(lane, julia ? VectorPlotter.this.zx : px, julia ? VectorPlotter.this.zy : y, kx, ky);
+                order[pending++] = lane;
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Renders a sequence of views to numbered PNGs as a pipeline: the tile workers plot and colour frame n while up
+//to `encoders` earlier frames are compressed in parallel, the frames in flight are bounded by the image pool.
+//A frame whose pixel grid refines the previous one (a pan by whole pixels, a zoom by a whole factor) takes the
+//pixels the two share from the previous frame and only plots the others.
+public class AnimationRenderer {
+
+    //how far from the previous frame's grid a frame may be and still reuse its pixels, in pixels
+    private static final double GRID_TOLERANCE = 1e-6;
+
+    private final int width;
+    private final int height;
+    private final TileScheduler scheduler;
+    private final int encoders;
+    private final int level;
+
+    //plotters of the set, vector and subdivision choice of the animation, one per precision it passes through
+    private final Map<Precision, Plotter> plotters = new EnumMap<>(Precision.class);
+
+    //counts and |z|^2 of the last frame, with the view and plotter they came from
+    private final int[] previousCounts;
+    private final float[] previousMagnitudes;
+    private View previous;
+    private Plotter previousPlotter;
+
+    public AnimationRenderer(int width, int height, TileScheduler scheduler, int encoders, int level) {
+        this.width = width;
+        this.height = height;
+        this.scheduler = scheduler;
+        this.encoders = encoders;
+        this.level = level;
+        previousCounts = new int[width * height];
+        previousMagnitudes = new float[width * height];
+    }
+
+    //Writes frame i of views to directory/frame-<i>.png, returns how many frames reused the one before.
+    public int render(List<View> views, Path directory) throws InterruptedException, IOException {
+        BlockingQueue<int[]> images = new ArrayBlockingQueue<>(encoders + 1);
+        for (int i = 0; i < encoders + 1; ++i) {
+            images.add(new int[width * height]);
+        }
+
+        ExecutorService encoding = Executors.newFixedThreadPool(encoders);
+        List<Future<?>> encoded = new ArrayList<>();
+        int reused = 0;
+        try {
+            for (int frame = 0; frame < views.size(); ++frame) {
+                View view = views.get(frame);
+                int[] image = images.take();
+                if (render(view, image)) {
+                    reused++;
+                }
+
+                Path path = directory.resolve(String.format("frame-%05d.png", frame));
+                encoded.add(encoding.submit(() -> {
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path.toFile()));
+                         PngWriter png = new PngWriter(out, width, height, level)) {
+                        png.write(image, 0, height);
+                    } finally {
+                        images.add(image);
+                    }
+                    return null;
+                }));
+                check(encoded, false);
+            }
+            check(encoded, true);
+        } finally {
+            encoding.shutdownNow();
+        }
+        return reused;
+    }
+
+    //Plots and colours one frame into image, returns whether it reused the previous frame.
+    private boolean render(View view, int[] image) throws InterruptedException {
+        Plotter plotter = plotters.computeIfAbsent(Precision.of(view), p -> p.create(view, width, height));
+        plotter.setMaxIterations(view.getMaxIterations());
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), view.getStep());
+
+        Refinement refinement = plotter == previousPlotter ? refinement(previous, view) : null;
+        if (refinement == null) {
+            plot(plotter, view, image, 0, 0, width, height);
+        } else {
+            refinement.copy(plotter, view, image);
+            //the strips the previous frame does not reach, then the lattices between its pixels
+            plot(plotter, view, image, 0, 0, width, refinement.top);
+            plot(plotter, view, image, 0, refinement.bottom, width, height - refinement.bottom);
+            plot(plotter, view, image, 0, refinement.top, refinement.left, refinement.bottom - refinement.top);
+            plot(plotter, view, image, refinement.right, refinement.top,
+                    width - refinement.right, refinement.bottom - refinement.top);
+            for (int dy = 0; dy < refinement.factor; ++dy) {
+                for (int dx = dy == 0 ? 1 : 0; dx < refinement.factor; ++dx) {
+                    plotLattice(plotter, view, image, refinement.left + dx, refinement.top + dy, refinement.factor,
+                            refinement.right, refinement.bottom);
+                }
+            }
+        }
+
+        System.arraycopy(plotter.getBuffer(), 0, previousCounts, 0, width * height);
+        System.arraycopy(plotter.getMagnitudes(), 0, previousMagnitudes, 0, width * height);
+        previous = view;
+        previousPlotter = plotter;
+        return refinement != null;
+    }
+
+    private void plot(Plotter plotter, View view, int[] image, int x, int y, int w, int h)
+            throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+
+        scheduler.render(x, y, w, h, (tx, ty, tw, th) -> {
+            plotter.plot(minx + tx * step, miny + ty * step, step,
+                    tw, th,
+                    ty * width + tx, width);
+            colour(plotter, view, image, tx, ty, tw, th, 1);
+        });
+    }
+
+    //Plots the pixels (originX + k * spacing, originY + l * spacing) left of right and above bottom.
+    private void plotLattice(Plotter plotter, View view, int[] image, int originX, int originY, int spacing,
+                             int right, int bottom) throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+
+        int columns = (right - originX + spacing - 1) / spacing;
+        int rows = (bottom - originY + spacing - 1) / spacing;
+        int tileSize = Math.max(1, scheduler.getTileSize() / spacing);
+
+        scheduler.render(0, 0, columns, rows, tileSize, (x, y, w, h) -> {
+            int px = originX + x * spacing;
+            int py = originY + y * spacing;
+            plotter.plot(minx + px * step, miny + py * step, step * spacing,
+                    w, h,
+                    py * width + px, width * spacing, spacing);
+            colour(plotter, view, image, px, py, w, h, spacing);
+        });
+    }
+
+    private double getMinX(Plotter plotter, View view) {
+        return (plotter.isRelative() ? 0 : view.getCenterX()) - width / 2.0 / view.getZoom();
+    }
+
+    private double getMinY(Plotter plotter, View view) {
+        return (plotter.isRelative() ? 0 : view.getCenterY()) - height / 2.0 / view.getZoom();
+    }
+
+    //How the pixels of the previous frame sit on the grid of view, or null when they do not line up with it.
+    private Refinement refinement(View previous, View view) {
+        if (previous == null
+                || previous.getMaxIterations() != view.getMaxIterations()
+                || previous.getStartX() != view.getStartX()
+                || previous.getStartY() != view.getStartY()
+                || !previous.getSet().equals(view.getSet())) {
+            return null;
+        }
+
+        double ratio = view.getZoom() / previous.getZoom();
+        long factor = Math.round(ratio);
+        if (factor < 1 || Math.abs(ratio - factor) > GRID_TOLERANCE) {
+            return null;
+        }
+
+        //new pixel of the previous frame's pixel 0, from the exact centers so it stays accurate at any depth
+        double x = previous.getPreciseCenterX().subtract(view.getPreciseCenterX()).doubleValue() * view.getZoom()
+                + width / 2.0 - factor * width / 2.0;
+        double y = previous.getPreciseCenterY().subtract(view.getPreciseCenterY()).doubleValue() * view.getZoom()
+                + height / 2.0 - factor * height / 2.0;
+        if (Math.abs(x - Math.rint(x)) > GRID_TOLERANCE || Math.abs(y - Math.rint(y)) > GRID_TOLERANCE
+                || Math.abs(x) > (long) width * factor || Math.abs(y) > (long) height * factor) {
+            return null;
+        }
+        return new Refinement((int) factor, (int) Math.rint(x), (int) Math.rint(y));
+    }
+
+    //Colours the w x h samples from pixel (x, y) on, spacing pixels apart.
+    private void colour(Plotter plotter, View view, int[] image, int x, int y, int w, int h, int spacing) {
+        int maxIterations = view.getMaxIterations();
+        boolean smooth = view.isSmooth();
+        int[] iterations = plotter.getBuffer();
+        float[] magnitudes = plotter.getMagnitudes();
+
+        for (int i = 0; i < h; ++i) {
+            for (int j = 0, pixel = (y + i * spacing) * width + x; j < w; ++j, pixel += spacing) {
+                image[pixel] = smooth
+                        ? Palette.smooth(iterations[pixel], magnitudes[pixel], maxIterations)
+                        : Palette.banded(iterations[pixel], maxIterations);
+            }
+        }
+    }
+
+    //Rethrows the failure of a finished encoder; with all set, waits for every frame to be written.
+    private static void check(List<Future<?>> encoded, boolean all) throws InterruptedException, IOException {
+        for (Iterator<Future<?>> frames = encoded.iterator(); frames.hasNext(); ) {
+            Future<?> frame = frames.next();
+            if (!all && !frame.isDone()) {
+                continue;
+            }
+            try {
+                frame.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException("Writing a frame failed", e.getCause());
+            }
+            frames.remove();
+        }
+    }
+
+    //Pixel (i, j) of the previous frame is pixel (x + i * factor, y + j * factor) of the new one. Those that land
+    //in the frame are the lattice with spacing factor from (left, top), up to but excluding (right, bottom).
+    private class Refinement {
+        private final int factor;
+        private final int x;
+        private final int y;
+        private final int left;
+        private final int right;
+        private final int top;
+        private final int bottom;
+
+        private Refinement(int factor, int x, int y) {
+            this.factor = factor;
+            this.x = x;
+            this.y = y;
+            left = Math.min(width, first(x));
+            right = Math.max(left, Math.min(width, x + (width - 1) * factor + 1));
+            top = Math.min(height, first(y));
+            bottom = Math.max(top, Math.min(height, y + (height - 1) * factor + 1));
+        }
+
+        //first pixel on or after 0 that lies on the previous grid
+        private int first(int origin) {
+            return origin >= 0 ? origin : origin + Math.floorDiv(-origin + factor - 1, factor) * factor;
+        }
+
+        //Takes over the counts of the previous frame's pixels and colours them.
+        private void copy(Plotter plotter, View view, int[] image) {
+            int[] counts = plotter.getBuffer();
+            float[] magnitudes = plotter.getMagnitudes();
+            int columns = (right - left + factor - 1) / factor;
+            int rows = (bottom - top + factor - 1) / factor;
+            for (int row = 0; row < rows; ++row) {
+                int from = ((top - y) / factor + row) * width + (left - x) / factor;
+                int to = (top + row * factor) * width + left;
+                for (int column = 0; column < columns; ++column, to += factor) {
+                    counts[to] = previousCounts[from + column];
+                    magnitudes[to] = previousMagnitudes[from + column];
+                }
+            }
+            colour(plotter, view, image, left, top, columns, rows, factor);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Adaptive supersampling: once a band is plotted at one sample per pixel, only the pixels whose count differs from
+//a neighbour's are plotted again, at one jittered point in every cell of a grid x grid split of the pixel, and get
+//the average colour of those. Flat areas and the inside of the set keep their single sample, so the cost follows
+//the length of the edges instead of the area. Every worker queues the points of the edge pixels of its tiles and
+//plots BATCH pixels of them at a time as scattered points, which the vector plotters spread over their lanes.
+public class Antialiaser {
+
+    //edge pixels a worker queues before it plots their points
+    private static final int BATCH = 512;
+
+    private final int width;
+    private final int maxIterations;
+    private final boolean smooth;
+    private final double step;
+    private final int grid;
+    private final int samples;
+    private final TileScheduler scheduler;
+    //BATCH x samples points for every worker, one row each
+    private final Plotter plotter;
+    private final double[][] pointsX;
+    private final double[][] pointsY;
+    //band pixel of every queued edge pixel
+    private final int[][] targets;
+    //counts of the last row of the previous band, the neighbours above the first row of the next one
+    private int[] above;
+    private final LongAdder edges = new LongAdder();
+
+    //samples is the number of points per edge pixel and has to be a square number
+    public Antialiaser(View view, int width, int samples, TileScheduler scheduler) {
+        int grid = (int) Math.round(Math.sqrt(samples));
+        if (samples < 1 || grid * grid != samples) {
+            throw new IllegalArgumentException("Samples per pixel must be a square number: " + samples);
+        }
+        this.width = width;
+        this.maxIterations = view.getMaxIterations();
+        this.smooth = view.isSmooth();
+        this.step = view.getStep();
+        this.grid = grid;
+        this.samples = samples;
+        this.scheduler = scheduler;
+
+        int workers = scheduler.getWorkers();
+        plotter = Precision.of(view).create(view, BATCH * samples, workers);
+        plotter.setMaxIterations(maxIterations);
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), step);
+        pointsX = new double[workers][BATCH * samples];
+        pointsY = new double[workers][BATCH * samples];
+        targets = new int[workers][BATCH];
+    }
+
+    //Supersamples the edge pixels of a band of rows x width counts, whose top row is row top of the image, and
+    //writes their colours into pixels. When below is set, counts holds the first row of the next band after the
+    //band's rows, as the neighbours of its last row. minx and miny place the first pixel of the image the way the
+    //band's plotter took them. Bands have to come top to bottom.
+    public void render(int[] counts, int[] pixels, int top, int rows, boolean below, double minx, double miny)
+            throws InterruptedException {
+        int[] above = this.above;
+        scheduler.render(0, 0, width, rows, scheduler.getTileSize(), (worker, x, y, w, h) -> {
+            int queued = 0;
+            for (int row = y; row < y + h; ++row) {
+                for (int column = x; column < x + w; ++column) {
+                    int pixel = row * width + column;
+                    if (!isEdge(counts, above, pixel, column, row, rows, below)) {
+                        continue;
+                    }
+                    queue(worker, queued++, pixel, minx + column * step, miny + (top + row) * step,
+                            (long) (top + row) * width + column);
+                    if (queued == BATCH) {
+                        resolve(worker, queued, pixels);
+                        queued = 0;
+                    }
+                }
+            }
+            resolve(worker, queued, pixels);
+        });
+
+        if (this.above == null) {
+            this.above = new int[width];
+        }
+        System.arraycopy(counts, (rows - 1) * width, this.above, 0, width);
+    }
+
+    //Edge pixels supersampled so far.
+    public long getEdges() {
+        return edges.sum();
+    }
+
+    private boolean isEdge(int[] counts, int[] above, int pixel, int column, int row, int rows, boolean below) {
+        int count = counts[pixel];
+        return column > 0 && differs(count, counts[pixel - 1])
+                || column < width - 1 && differs(count, counts[pixel + 1])
+                || (row > 0 ? differs(count, counts[pixel - width]) : above != null && differs(count, above[column]))
+                || (row < rows - 1 || below) && differs(count, counts[pixel + width]);
+    }
+
+    //Smooth colours are continuous across neighbouring counts, banded ones change with every count. Pixels
+    //inside the set are black next to any escaped one.
+    private boolean differs(int count, int neighbour) {
+        return count != neighbour
+                && (!smooth || Math.abs(count - neighbour) > 1 || count == maxIterations || neighbour == maxIterations);
+    }
+
+    //(x, y) is the point the pixel was plotted at, the middle of its cells are placed around it
+    private void queue(int worker, int k, int pixel, double x, double y, long seed) {
+        double[] px = pointsX[worker];
+        double[] py = pointsY[worker];
+        for (int cell = 0; cell < samples; ++cell) {
+            int point = k * samples + cell;
+            px[point] = x + ((cell % grid + jitter(seed, 2 * cell)) / grid - 0.5) * step;
+            py[point] = y + ((cell / grid + jitter(seed, 2 * cell + 1)) / grid - 0.5) * step;
+        }
+        targets[worker][k] = pixel;
+        edges.increment();
+    }
+
+    private void resolve(int worker, int queued, int[] pixels) {
+        if (queued == 0) {
+            return;
+        }
+        int offset = worker * BATCH * samples;
+        plotter.plot(pointsX[worker], pointsY[worker], queued * samples, offset);
+
+        int[] iterations = plotter.getBuffer();
+        float[] magnitudes = plotter.getMagnitudes();
+        for (int k = 0; k < queued; ++k) {
+            int red = 0;
+            int green = 0;
+            int blue = 0;
+            for (int point = offset + k * samples; point < offset + (k + 1) * samples; ++point) {
+                int colour = smooth
+                        ? Palette.smooth(iterations[point], magnitudes[point], maxIterations)
+                        : Palette.banded(iterations[point], maxIterations);
+                red += (colour >> 16) & 0xff;
+                green += (colour >> 8) & 0xff;
+                blue += colour & 0xff;
+            }
+            pixels[targets[worker][k]] = 0xff000000
+                    | (red + samples / 2) / samples << 16
+                    | (green + samples / 2) / samples << 8
+                    | (blue + samples / 2) / samples;
+        }
+    }
+
+    //Offset in [0, 1) of a point within its cell, the same for every render of the image.
+    private static double jitter(long pixel, int coordinate) {
+        long h = pixel * 0x9e3779b97f4a7c15L + coordinate * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+}
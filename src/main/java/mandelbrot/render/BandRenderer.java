@@ -0,0 +1,166 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+//Renders an image of any size as horizontal bands of at most bandHeight rows. Only one band of counts and
+//BANDS bands of colours are ever held: the tile workers plot and colour the next band while the last coloured
+//one is being compressed on a thread of its own.
+public class BandRenderer {
+
+    //coloured bands in flight, one being filled and one being written
+    private static final int BANDS = 2;
+
+    private final View view;
+    private final int width;
+    private final int height;
+    private final int bandHeight;
+    private final TileScheduler scheduler;
+    private WorkerPool workers;
+    private int samples = 1;
+
+    public BandRenderer(View view, int width, int height, int bandHeight, TileScheduler scheduler) {
+        if (bandHeight <= 0) {
+            throw new IllegalArgumentException("Band height must be positive: " + bandHeight);
+        }
+        this.view = view;
+        this.width = width;
+        this.height = height;
+        this.bandHeight = Math.min(bandHeight, height);
+        this.scheduler = scheduler;
+    }
+
+    //Has the tiles plotted by other processes, the scheduler needs a thread per connection to keep them all busy.
+    public void setWorkers(WorkerPool workers) {
+        this.workers = workers;
+    }
+
+    //Supersamples the pixels along edges at samples points each, see Antialiaser. 1 keeps one sample per pixel.
+    public void setAntialiasing(int samples) {
+        this.samples = samples;
+    }
+
+    //Writes the image to png and, when counts is not null, the raw iteration counts to counts as well.
+    public void render(PngWriter png, IterationFile counts) throws InterruptedException, IOException {
+        //antialiasing plots the first row of the next band below every band as well, see below
+        int plotted = samples > 1 ? bandHeight + 1 : bandHeight;
+        Plotter local = Precision.of(view).create(view, width, plotted);
+        Plotter plotter = workers != null ? new RemotePlotter(local, width, plotted, workers, view) : local;
+        plotter.setMaxIterations(view.getMaxIterations());
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), view.getStep());
+
+        double step = view.getStep();
+        double minx = (plotter.isRelative() ? 0 : view.getCenterX()) - width / 2.0 / view.getZoom();
+        double miny = (plotter.isRelative() ? 0 : view.getCenterY()) - height / 2.0 / view.getZoom();
+        Antialiaser antialiaser = samples > 1 ? new Antialiaser(view, width, samples, scheduler) : null;
+
+        BlockingQueue<int[]> free = new ArrayBlockingQueue<>(BANDS);
+        BlockingQueue<Band> coloured = new ArrayBlockingQueue<>(BANDS + 1);
+        for (int i = 0; i < BANDS; ++i) {
+            free.add(new int[width * bandHeight]);
+        }
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> written = writer.submit(() -> {
+                for (Band band = coloured.take(); band.rows > 0; band = coloured.take()) {
+                    png.write(band.pixels, 0, band.rows);
+                    free.add(band.pixels);
+                }
+                return null;
+            });
+
+            for (int top = 0; top < height; top += bandHeight) {
+                int rows = Math.min(bandHeight, height - top);
+                int[] pixels = take(free, written);
+                int first = top;
+
+                scheduler.render(0, 0, width, rows, (x, y, w, h) -> {
+                    //placed from the top of the image, so the band height never moves a pixel
+                    plotter.plot(minx + x * step, miny + (first + y) * step, step,
+                            w, h,
+                            y * width + x, width);
+                    colour(plotter, pixels, x, y, w, h);
+                });
+                //edges need the neighbours of every pixel of the band, so only once all of it is plotted. The
+                //last row's neighbours below are the next band's first row, plotted on its own the way that band
+                //will plot it, so both bands see the same counts across the seam.
+                if (antialiaser != null) {
+                    boolean below = top + rows < height;
+                    if (below) {
+                        scheduler.render(0, rows, width, 1, (x, y, w, h) -> plotter.plot(
+                                minx + x * step, miny + (first + y) * step, step,
+                                w, h,
+                                y * width + x, width));
+                    }
+                    antialiaser.render(plotter.getBuffer(), pixels, top, rows, below, minx, miny);
+                }
+                if (counts != null) {
+                    counts.write(plotter.getBuffer(), 0, top, rows);
+                }
+                coloured.add(new Band(pixels, rows));
+            }
+            coloured.add(new Band(null, 0));
+
+            await(written);
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    private void colour(Plotter plotter, int[] pixels, int x, int y, int w, int h) {
+        int maxIterations = view.getMaxIterations();
+        boolean smooth = view.isSmooth();
+        int[] iterations = plotter.getBuffer();
+        float[] magnitudes = plotter.getMagnitudes();
+
+        for (int row = y; row < y + h; ++row) {
+            for (int pixel = row * width + x; pixel < row * width + x + w; ++pixel) {
+                pixels[pixel] = smooth
+                        ? Palette.smooth(iterations[pixel], magnitudes[pixel], maxIterations)
+                        : Palette.banded(iterations[pixel], maxIterations);
+            }
+        }
+    }
+
+    //Waits for a free band, giving up with the writer's failure if it stopped taking bands.
+    private static int[] take(BlockingQueue<int[]> free, Future<?> written) throws InterruptedException, IOException {
+        int[] pixels;
+        while ((pixels = free.poll(100, TimeUnit.MILLISECONDS)) == null) {
+            if (written.isDone()) {
+                await(written);
+            }
+        }
+        return pixels;
+    }
+
+    private static void await(Future<?> written) throws InterruptedException, IOException {
+        try {
+            written.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Writing the image failed", e.getCause());
+        }
+    }
+
+    private static final class Band {
+        private final int[] pixels;
+        private final int rows;
+
+        private Band(int[] pixels, int rows) {
+            this.pixels = pixels;
+            this.rows = rows;
+        }
+    }
+}
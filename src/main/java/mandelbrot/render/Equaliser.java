@@ -0,0 +1,107 @@
+package mandelbrot.render;
+
+import java.util.Arrays;
+
+//Histogram equalised colouring: every escaped pixel gets the gradient colour at its rank among the escaped pixels
+//of the frame, so the palette spreads over whatever counts the frame has instead of repeating every 16 of them.
+//Counts share at most BINS bins and are ranked linearly within their bin, so the histogram stays the same size at
+//any limit. Every worker counts into a histogram of its own, the merge and the prefix sum over it run in blocks
+//of bins on the workers as well, only the block totals are added up in between. The ranks end up in a table with
+//the colour of every count, which the last pass looks the pixels up in.
+public class Equaliser {
+
+    private static final int BINS = 4096;
+    private static final int BLOCK = 256;
+
+    private final TileScheduler scheduler;
+    private final long[] cdf = new long[BINS + 1];
+    private final float[] ranks = new float[BINS + 1];
+    private final long[] offsets = new long[BINS / BLOCK];
+    private int[][] histograms = new int[0][];
+    private int[] colours = new int[0];
+
+    public Equaliser(TileScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    //Colours the frame of counts into pixels, both width x height row-major.
+    public void colour(int[] iterations, int width, int height, int maxIterations, int[] pixels)
+            throws InterruptedException {
+        if (histograms.length != scheduler.getWorkers()) {
+            histograms = new int[scheduler.getWorkers()][BINS];
+        }
+        if (colours.length < maxIterations) {
+            colours = new int[maxIterations];
+        }
+        int bins = Math.min(maxIterations, BINS);
+        double scale = (double) bins / maxIterations;
+        int tileSize = scheduler.getTileSize();
+
+        //workers clear their histogram on their first tile, the ones that got none are left out of the merge
+        boolean[] counted = new boolean[histograms.length];
+        scheduler.render(0, 0, width, height, tileSize, (worker, x, y, w, h) -> {
+            int[] histogram = histograms[worker];
+            if (!counted[worker]) {
+                Arrays.fill(histogram, 0, bins, 0);
+                counted[worker] = true;
+            }
+            for (int row = y; row < y + h; ++row) {
+                for (int pixel = row * width + x; pixel < row * width + x + w; ++pixel) {
+                    int it = iterations[pixel];
+                    if (it < maxIterations) {
+                        histogram[(int) (it * scale)]++;
+                    }
+                }
+            }
+        });
+
+        //cdf[bin] is the number of escaped pixels in the bins below, first within each block only
+        scheduler.render(0, 0, bins, 1, BLOCK, (worker, x, y, w, h) -> {
+            long sum = 0;
+            for (int bin = x; bin < x + w; ++bin) {
+                cdf[bin] = sum;
+                for (int i = 0; i < histograms.length; ++i) {
+                    if (counted[i]) {
+                        sum += histograms[i][bin];
+                    }
+                }
+            }
+            offsets[x / BLOCK] = sum;
+        });
+
+        long total = 0;
+        for (int block = 0; block < (bins + BLOCK - 1) / BLOCK; ++block) {
+            long sum = offsets[block];
+            offsets[block] = total;
+            total += sum;
+        }
+        cdf[bins] = total;
+
+        double escaped = Math.max(1, total);
+        scheduler.render(0, 0, bins, 1, BLOCK, (worker, x, y, w, h) -> {
+            for (int bin = x; bin < x + w; ++bin) {
+                cdf[bin] += offsets[x / BLOCK];
+                ranks[bin] = (float) (cdf[bin] / escaped);
+            }
+        });
+        ranks[bins] = (float) (total / escaped);
+
+        int[] colours = this.colours;
+        scheduler.render(0, 0, maxIterations, 1, BINS, (worker, x, y, w, h) -> {
+            for (int it = x; it < x + w; ++it) {
+                double position = it * scale;
+                int bin = (int) position;
+                colours[it] = Palette.equalised(ranks[bin] + (float) (position - bin) * (ranks[bin + 1] - ranks[bin]));
+            }
+        });
+
+        scheduler.render(0, 0, width, height, tileSize, (worker, x, y, w, h) -> {
+            for (int row = y; row < y + h; ++row) {
+                for (int pixel = row * width + x; pixel < row * width + x + w; ++pixel) {
+                    int it = iterations[pixel];
+                    pixels[pixel] = it >= maxIterations ? 0 : colours[it];
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package mandelbrot.render;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+//A completed frame with the totals of its RenderMetrics.
+@Name("mandelbrot.Frame")
+@Label("Frame")
+@Category("Mandelbrot")
+@Description("A completed frame")
+public class FrameEvent extends jdk.jfr.Event {
+    @Label("Plotter")
+    public String plotter;
+    @Label("Tiles")
+    public long tiles;
+    @Label("Slowest Tile")
+    @Timespan(Timespan.NANOSECONDS)
+    public long slowestTile;
+    @Label("Queue Wait")
+    @Description("Time worker tasks sat in the pool queue, summed")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueWait;
+    @Label("Pixels")
+    public long pixels;
+    @Label("Iterations")
+    @Description("Iterations the plotter executed, pixels settled without iterating take none")
+    public long iterations;
+    @Label("Iterations per Second")
+    @Description("Executed iterations per second of the frame")
+    public double iterationsPerSecond;
+    @Label("Interior Share")
+    @Description("Share of the plotted pixels that reached maxIterations")
+    public double interiorShare;
+    @Label("Lane Utilisation")
+    @Description("Share of the vector lane steps that still had a pixel iterating")
+    public double laneUtilisation;
+
+    public void set(RenderMetrics.Snapshot snapshot) {
+        tiles = snapshot.tiles;
+        slowestTile = snapshot.slowestTileNanos;
+        queueWait = snapshot.queueNanos;
+        pixels = snapshot.pixels;
+        iterations = snapshot.iterations;
+        iterationsPerSecond = snapshot.getIterationsPerSecond();
+        interiorShare = snapshot.getInteriorShare();
+        laneUtilisation = snapshot.getLaneUtilisation();
+    }
+}
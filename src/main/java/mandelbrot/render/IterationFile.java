@@ -0,0 +1,217 @@
+package mandelbrot.render;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+//Raw iteration counts of a render, memory-mapped so renders larger than the heap (or RAM) can be written band by
+//band and read back tile by tile without ever being loaded whole. All fields are little-endian:
+//  0  magic "MBIT", version
+//  8  width, height, maxIterations, bytes per count (2 while maxIterations fits an unsigned short, else 4)
+//  24 minx, miny, step, startX, startY as doubles
+//  64 set name, ASCII, zero padded to SET_LENGTH bytes
+//  80 the counts, row-major
+public class IterationFile implements Closeable {
+
+    private static final int MAGIC = 'M' | 'B' << 8 | 'I' << 16 | 'T' << 24;
+    private static final int VERSION = 1;
+    private static final int SET_LENGTH = 16;
+    private static final int HEADER_SIZE = 80;
+    private static final int SHORT_LIMIT = 0xffff;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int width;
+    private final int height;
+    private final int maxIterations;
+    private final int countBytes;
+    private final double minX;
+    private final double minY;
+    private final double step;
+    private final double startX;
+    private final double startY;
+    private final String set;
+
+    //the payload is mapped in segments of whole rows, a single mapping cannot pass 2 GB
+    private final int segmentRows;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<IntBuffer> ints = new ArrayList<>();
+    private final List<ShortBuffer> shorts = new ArrayList<>();
+    //a row of short counts, converted here so it goes to and from the mapping in one bulk copy; write and read
+    //share it and are called from one thread at a time
+    private final short[] shortRow;
+
+    private IterationFile(FileChannel channel, FileChannel.MapMode mode, ByteBuffer header) throws IOException {
+        this.channel = channel;
+        this.writable = mode == FileChannel.MapMode.READ_WRITE;
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an iteration file of version " + VERSION);
+        }
+        width = header.getInt(8);
+        height = header.getInt(12);
+        maxIterations = header.getInt(16);
+        countBytes = header.getInt(20);
+        if (width <= 0 || height <= 0 || (countBytes != Short.BYTES && countBytes != Integer.BYTES)) {
+            throw new IOException("Bad iteration file header: " + width + "x" + height + " pixels of "
+                    + countBytes + " bytes");
+        }
+        minX = header.getDouble(24);
+        minY = header.getDouble(32);
+        step = header.getDouble(40);
+        startX = header.getDouble(48);
+        startY = header.getDouble(56);
+        byte[] name = new byte[SET_LENGTH];
+        header.get(64, name);
+        set = new String(name, StandardCharsets.US_ASCII).trim();
+
+        long rowBytes = (long) width * countBytes;
+        segmentRows = (int) Math.max(1, Math.min(height, Integer.MAX_VALUE / rowBytes));
+        for (int row = 0; row < height; row += segmentRows) {
+            int rows = Math.min(segmentRows, height - row);
+            MappedByteBuffer segment = channel.map(mode, HEADER_SIZE + row * rowBytes, rows * rowBytes);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(segment);
+            if (countBytes == Short.BYTES) {
+                shorts.add(segment.asShortBuffer());
+            } else {
+                ints.add(segment.asIntBuffer());
+            }
+        }
+        shortRow = countBytes == Short.BYTES ? new short[width] : null;
+    }
+
+    //A new file for the width x height pixels of the view, to be filled with write.
+    public static IterationFile create(Path path, View view, int width, int height) throws IOException {
+        String set = view.getSet();
+        if (set.length() > SET_LENGTH) {
+            throw new IllegalArgumentException("Set name is longer than " + SET_LENGTH + " characters: " + set);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.putInt(width).putInt(height).putInt(view.getMaxIterations());
+        header.putInt(view.getMaxIterations() <= SHORT_LIMIT ? Short.BYTES : Integer.BYTES);
+        header.putDouble(view.getMinX(width)).putDouble(view.getMinY(height)).putDouble(view.getStep());
+        header.putDouble(view.getStartX()).putDouble(view.getStartY());
+        header.put(set.getBytes(StandardCharsets.US_ASCII));
+        header.flip();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            channel.write(header, 0);
+            header.clear();
+            return new IterationFile(channel, FileChannel.MapMode.READ_WRITE, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static IterationFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) != HEADER_SIZE) {
+                throw new IOException("Iteration file is shorter than its header: " + path);
+            }
+            return new IterationFile(channel, FileChannel.MapMode.READ_ONLY, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //Stores rows whole rows of counts, taken width apart from counts[offset] on, as rows firstRow onwards.
+    public void write(int[] counts, int offset, int firstRow, int rows) {
+        for (int row = firstRow; row < firstRow + rows; ++row) {
+            int index = (row % segmentRows) * width;
+            int from = offset + (row - firstRow) * width;
+            if (countBytes == Short.BYTES) {
+                for (int i = 0; i < width; ++i) {
+                    shortRow[i] = (short) counts[from + i];
+                }
+                shorts.get(row / segmentRows).put(index, shortRow, 0, width);
+            } else {
+                ints.get(row / segmentRows).put(index, counts, from, width);
+            }
+        }
+    }
+
+    //Reads the w x h counts from pixel (x, y) on into counts[offset], rows stride apart. Only the pages of those
+    //rows are touched, so any part of a file far larger than memory can be viewed.
+    public void read(int x, int y, int w, int h, int[] counts, int offset, int stride) {
+        for (int row = y; row < y + h; ++row) {
+            int index = (row % segmentRows) * width + x;
+            int to = offset + (row - y) * stride;
+            if (countBytes == Short.BYTES) {
+                shorts.get(row / segmentRows).get(index, shortRow, 0, w);
+                for (int i = 0; i < w; ++i) {
+                    counts[to + i] = shortRow[i] & SHORT_LIMIT;
+                }
+            } else {
+                ints.get(row / segmentRows).get(index, counts, to, w);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writable && channel.isOpen()) {
+                for (MappedByteBuffer segment : segments) {
+                    segment.force();
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getStep() {
+        return step;
+    }
+
+    public double getStartX() {
+        return startX;
+    }
+
+    public double getStartY() {
+        return startY;
+    }
+
+    public String getSet() {
+        return set;
+    }
+}
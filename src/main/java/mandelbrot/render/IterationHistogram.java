@@ -0,0 +1,93 @@
+package mandelbrot.render;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts of a frame by how far they got towards the limit: `slices` equal slices of [0, maxIterations) and one
+//more bucket for the pixels at the limit. Tile tasks count into an array of their own and add it in one go, the
+//buckets are striped counters, so workers never contend on them.
+public class IterationHistogram {
+
+    private final int slices;
+    private final LongAdder[] buckets;
+
+    private volatile int maxIterations = 1;
+    private volatile double scale;
+
+    public IterationHistogram(int slices) {
+        this.slices = slices;
+        buckets = new LongAdder[slices + 1];
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new LongAdder();
+        }
+        reset(maxIterations);
+    }
+
+    public void reset(int maxIterations) {
+        this.maxIterations = maxIterations;
+        this.scale = (double) slices / maxIterations;
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+
+    //Per tile counts, for count and add.
+    public long[] newCounts() {
+        return new long[slices + 1];
+    }
+
+    public void count(long[] counts, int iterations) {
+        counts[iterations >= maxIterations ? slices : (int) (iterations * scale)]++;
+    }
+
+    public void add(long[] counts) {
+        for (int i = 0; i < counts.length; ++i) {
+            if (counts[i] != 0) {
+                buckets[i].add(counts[i]);
+            }
+        }
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public long getPixels() {
+        long pixels = 0;
+        for (LongAdder bucket : buckets) {
+            pixels += bucket.sum();
+        }
+        return pixels;
+    }
+
+    public long getInterior() {
+        return buckets[slices].sum();
+    }
+
+    //Iterations the frame took all told, taking every escaped pixel to be in the middle of its slice.
+    public double getIterations() {
+        double iterations = (double) buckets[slices].sum() * maxIterations;
+        for (int i = 0; i < slices; ++i) {
+            iterations += buckets[i].sum() * (i + 0.5) * maxIterations / slices;
+        }
+        return iterations;
+    }
+
+    //Pixels that escaped at share * maxIterations or later.
+    public long getEscapedFrom(double share) {
+        long pixels = 0;
+        for (int i = (int) (share * slices); i < slices; ++i) {
+            pixels += buckets[i].sum();
+        }
+        return pixels;
+    }
+
+    //No pixel escaped after this many iterations, 0 when none escaped at all.
+    public int getEscapedBound() {
+        for (int i = slices - 1; i >= 0; --i) {
+            if (buckets[i].sum() != 0) {
+                return (int) Math.ceil((double) (i + 1) * maxIterations / slices);
+            }
+        }
+        return 0;
+    }
+}
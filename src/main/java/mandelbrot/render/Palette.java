@@ -0,0 +1,77 @@
+package mandelbrot.render;
+
+import java.awt.*;
+
+//Iteration counts to colours. Banded colouring gives every count the next of the 16 colours, smooth colouring
+//walks a gradient through them with the normalised iteration count
+//  nu = n + 1 - log2(log |z(n)|)
+//which is continuous across the bands, log |z| about doubles with every iteration once the orbit escaped.
+//Equalised colouring walks the gradient once, by the rank of the count among the escaped pixels of the frame.
+public final class Palette {
+
+    private static final int[] COLORS = {
+            new Color(66, 30, 15).getRGB(),
+            new Color(25, 7, 26).getRGB(),
+            new Color(9, 1, 47).getRGB(),
+            new Color(4, 4, 73).getRGB(),
+            new Color(0, 7, 100).getRGB(),
+            new Color(12, 44, 138).getRGB(),
+            new Color(24, 82, 177).getRGB(),
+            new Color(57, 125, 209).getRGB(),
+            new Color(134, 181, 229).getRGB(),
+            new Color(211, 236, 248).getRGB(),
+            new Color(241, 233, 191).getRGB(),
+            new Color(248, 201, 95).getRGB(),
+            new Color(255, 170, 0).getRGB(),
+            new Color(204, 128, 0).getRGB(),
+            new Color(153, 87, 0).getRGB(),
+            new Color(106, 52, 3).getRGB(),
+    };
+
+    //gradient entries from one colour to the next
+    private static final int STEPS = 256;
+    private static final int[] GRADIENT = gradient();
+    private static final double LOG_2 = Math.log(2);
+
+    private Palette() {
+    }
+
+    public static int banded(int iterations, int maxIterations) {
+        return iterations == maxIterations ? 0 : COLORS[iterations % COLORS.length];
+    }
+
+    //magnitude is |z(n)|^2 of the escaped orbit; pixels without a usable one get their band colour
+    public static int smooth(int iterations, float magnitude, int maxIterations) {
+        if (iterations == maxIterations) {
+            return 0;
+        }
+        if (!(magnitude > 4) || magnitude == Float.POSITIVE_INFINITY) {
+            return COLORS[iterations % COLORS.length];
+        }
+
+        //log2(log |z|) stays below 6 for any finite float |z|^2, so the shift by a whole palette keeps nu positive
+        double nu = iterations + 1 - Math.log(0.5 * Math.log(magnitude)) / LOG_2;
+        return GRADIENT[(int) ((nu + COLORS.length) * STEPS) % GRADIENT.length];
+    }
+
+    //rank is in [0, 1], see Equaliser
+    public static int equalised(float rank) {
+        return GRADIENT[(int) (rank * (GRADIENT.length - 1))];
+    }
+
+    private static int[] gradient() {
+        int[] gradient = new int[COLORS.length * STEPS];
+        for (int i = 0; i < COLORS.length; ++i) {
+            Color from = new Color(COLORS[i]);
+            Color to = new Color(COLORS[(i + 1) % COLORS.length]);
+            for (int j = 0; j < STEPS; ++j) {
+                float t = (float) j / STEPS;
+                gradient[i * STEPS + j] = new Color(
+                        Math.round(from.getRed() + (to.getRed() - from.getRed()) * t),
+                        Math.round(from.getGreen() + (to.getGreen() - from.getGreen()) * t),
+                        Math.round(from.getBlue() + (to.getBlue() - from.getBlue()) * t)).getRGB();
+            }
+        }
+        return gradient;
+    }
+}
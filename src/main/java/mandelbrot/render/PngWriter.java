@@ -0,0 +1,143 @@
+package mandelbrot.render;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+//Writes an 8 bit RGB PNG row by row, so an image of any size goes out without ever being held in memory.
+//The compressed rows are cut into IDAT chunks of CHUNK_SIZE bytes as they come out of the deflater.
+public class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+    //every row is written with the Sub filter, which turns the flat areas of a fractal into runs of zeros
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final DeflaterOutputStream data;
+    private final byte[] row;
+
+    private int rows;
+
+    public PngWriter(OutputStream out, int width, int height, int level) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + " x " + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.deflater = new Deflater(level);
+        this.data = new DeflaterOutputStream(new Chunks(), deflater, CHUNK_SIZE);
+        this.row = new byte[1 + 3 * width];
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(header);
+        fields.writeInt(width);
+        fields.writeInt(height);
+        fields.writeByte(8);
+        //colour type 2 is RGB, then default compression and filtering, no interlace
+        fields.writeByte(2);
+        fields.writeByte(0);
+        fields.writeByte(0);
+        fields.writeByte(0);
+
+        this.out.write(SIGNATURE);
+        chunk("IHDR", header.toByteArray(), header.size());
+    }
+
+    //Appends the next count rows, taken from pixels (0xRRGGBB, width apart) from offset on.
+    public void write(int[] pixels, int offset, int count) throws IOException {
+        if (rows + count > height) {
+            throw new IllegalStateException("Image has only " + height + " rows, " + (rows + count) + " written");
+        }
+
+        for (int y = 0; y < count; ++y) {
+            row[0] = FILTER_SUB;
+            int left = 0;
+            for (int x = 0, pixel = offset + y * width, i = 1; x < width; ++x, ++pixel, i += 3) {
+                int rgb = pixels[pixel];
+                row[i] = (byte) ((rgb >> 16) - (left >> 16));
+                row[i + 1] = (byte) ((rgb >> 8) - (left >> 8));
+                row[i + 2] = (byte) (rgb - left);
+                left = rgb;
+            }
+            data.write(row);
+        }
+        rows += count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows != height) {
+                throw new IllegalStateException("Image has " + height + " rows, only " + rows + " written");
+            }
+            data.finish();
+            data.flush();
+            chunk("IEND", row, 0);
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void chunk(String type, byte[] bytes, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(bytes, 0, length);
+
+        out.writeInt(length);
+        out.write(name);
+        out.write(bytes, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    //Collects the deflated stream and hands it on as full IDAT chunks.
+    private class Chunks extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count = Math.min(length, CHUNK_SIZE - size);
+                System.arraycopy(bytes, offset, buffer, size, count);
+                size += count;
+                offset += count;
+                length -= count;
+                if (size == CHUNK_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) {
+                chunk("IDAT", buffer, size);
+                size = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.*;
+
+//Which arithmetic a view needs: the cheapest one whose pixel step still tells neighbouring pixels apart.
+public enum Precision {
+    FLOAT,
+    DOUBLE,
+    DOUBLE_DOUBLE,
+    PERTURBATION;
+
+    //float vector plotters are used while the pixel step spans at least this many float ulps of the view
+    private static final float FLOAT_ULPS = 256;
+    //below this pixel step plain doubles can no longer tell neighbouring pixels apart
+    private static final double DOUBLE_DOUBLE_STEP = 1e-13;
+    //and below this one double-double runs out of digits as well
+    private static final double PERTURBATION_STEP = 1e-28;
+
+    //floats only pay off in the vector plotters, scalar views stay with doubles
+    public static Precision of(View view) {
+        double step = view.getStep();
+        if (step < PERTURBATION_STEP) {
+            return PERTURBATION;
+        }
+        if (step < DOUBLE_DOUBLE_STEP) {
+            return DOUBLE_DOUBLE;
+        }
+        return view.isAVX() && isFloatPrecise(view) ? FLOAT : DOUBLE;
+    }
+
+    //Orbits stay within |z| <= 2 until they escape, so the float resolution that matters is the one around
+    //the larger of 2 and the view center.
+    private static boolean isFloatPrecise(View view) {
+        float magnitude = (float) Math.max(2, Math.max(Math.abs(view.getCenterX()), Math.abs(view.getCenterY())));
+        return view.getStep() >= FLOAT_ULPS * Math.ulp(magnitude);
+    }
+
+    //A width x height plotter of this precision for the set, vector and subdivision choice of the view.
+    public Plotter create(View view, int width, int height) {
+        Plotter plotter = view.isJulia() ? julia(view.isAVX(), width, height) : mandelbrot(view.isAVX(), width, height);
+        return view.isSubdivision() ? new SubdivisionPlotter(plotter) : plotter;
+    }
+
+    private Plotter mandelbrot(boolean avx, int width, int height) {
+        switch (this) {
+            case FLOAT:
+                return avx ? new MandelbrotFloatAVXPlotter(width, height) : new MandelbrotPlotter(width, height);
+            case DOUBLE:
+                return avx ? new MandelbrotAVXPlotter(width, height) : new MandelbrotPlotter(width, height);
+            case DOUBLE_DOUBLE:
+                return avx ? new DoubleDoubleAVXPlotter(width, height) : new DoubleDoublePlotter(width, height);
+            default:
+                return avx ? new PerturbationAVXPlotter(width, height) : new PerturbationPlotter(width, height);
+        }
+    }
+
+    private Plotter julia(boolean avx, int width, int height) {
+        switch (this) {
+            case FLOAT:
+                return avx ? new JuliaFloatAVXPlotter(width, height) : new JuliaPlotter(width, height);
+            case DOUBLE:
+                return avx ? new JuliaAVXPlotter(width, height) : new JuliaPlotter(width, height);
+            case DOUBLE_DOUBLE:
+                return avx
+                        ? new JuliaDoubleDoubleAVXPlotter(width, height)
+                        : new JuliaDoubleDoublePlotter(width, height);
+            default:
+                return avx
+                        ? new JuliaPerturbationAVXPlotter(width, height)
+                        : new JuliaPerturbationPlotter(width, height);
+        }
+    }
+}
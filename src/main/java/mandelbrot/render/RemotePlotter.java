@@ -0,0 +1,135 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.function.BooleanSupplier;
+
+//Sends the tiles it is asked to plot to the workers of a WorkerPool and writes what they return into the buffers of
+//a local plotter for the same view. A tile whose worker fails goes to the next one, and once no worker is left
+//the local plotter plots the rest itself. Tiles a worker answers it could not plot, and tiles larger or with a
+//higher limit than workers take, are plotted locally as well.
+public class RemotePlotter extends Plotter {
+
+    private final Plotter plotter;
+    private final WorkerPool workers;
+    private final Precision precision;
+    private final View view;
+
+    private BigDecimal referenceX = BigDecimal.ZERO;
+    private BigDecimal referenceY = BigDecimal.ZERO;
+    private double referenceStep = 1;
+
+    //plotter is a width x height plotter of the view's precision, see Precision.create
+    public RemotePlotter(Plotter plotter, int width, int height, WorkerPool workers, View view) {
+        super(width, height, plotter.getBuffer(), plotter.getMagnitudes());
+        this.plotter = plotter;
+        this.workers = workers;
+        this.precision = Precision.of(view);
+        this.view = view;
+    }
+
+    @Override
+    public void plot(double minx, double miny, double step,
+                     int tileWidth, int tileHeight,
+                     int offset, int stride, int pixelStride) {
+        TileProtocol.Request request = new TileProtocol.Request();
+        request.precision = precision;
+        request.set = view.getSet();
+        request.avx = view.isAVX();
+        request.subdivision = view.isSubdivision();
+        request.maxIterations = maxIterations;
+        request.startX = zx;
+        request.startY = zy;
+        request.referenceX = referenceX;
+        request.referenceY = referenceY;
+        request.referenceStep = referenceStep;
+        request.minx = minx;
+        request.miny = miny;
+        request.step = step;
+        request.width = tileWidth;
+        request.height = tileHeight;
+
+        try {
+            if (TileProtocol.fits(tileWidth, tileHeight) && maxIterations <= TileProtocol.MAX_ITERATIONS
+                    && send(request, offset, stride, pixelStride)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            //only happens when the tile workers are shut down, nobody waits for the tile anymore
+            Thread.currentThread().interrupt();
+            return;
+        }
+        plotter.plot(minx, miny, step, tileWidth, tileHeight, offset, stride, pixelStride);
+    }
+
+    //Whether a worker plotted the tile.
+    private boolean send(TileProtocol.Request request, int offset, int stride, int pixelStride)
+            throws InterruptedException {
+        for (WorkerPool.Connection connection = workers.take(); connection != null; connection = workers.take()) {
+            try {
+                boolean plotted = connection.plot(request, buffer, magnitudes, offset, stride, pixelStride);
+                workers.release(connection);
+                //the other workers run the same plotters and would not get further with the tile
+                return plotted;
+            } catch (IOException e) {
+                workers.discard(connection, e);
+            }
+        }
+        return false;
+    }
+
+    //the workers only take tiles, scattered points are plotted here
+    @Override
+    public void plot(double[] x, double[] y, int count, int offset) {
+        plotter.plot(x, y, count, offset);
+    }
+
+    @Override
+    public void setMaxIterations(int maxIterations) {
+        super.setMaxIterations(maxIterations);
+        plotter.setMaxIterations(maxIterations);
+    }
+
+    @Override
+    public void setZ(double x, double y) {
+        super.setZ(x, y);
+        plotter.setZ(x, y);
+    }
+
+    @Override
+    public void setReference(BigDecimal x, BigDecimal y, double step) {
+        referenceX = x;
+        referenceY = y;
+        referenceStep = step;
+        plotter.setReference(x, y, step);
+    }
+
+    @Override
+    public boolean isRelative() {
+        return plotter.isRelative();
+    }
+
+    //only the tiles plotted here, the workers do not report theirs
+    @Override
+    public long getIterations() {
+        return plotter.getIterations();
+    }
+
+    @Override
+    public long getActiveLanes() {
+        return plotter.getActiveLanes();
+    }
+
+    @Override
+    public long getLaneSlots() {
+        return plotter.getLaneSlots();
+    }
+
+    @Override
+    public void setCancellation(BooleanSupplier cancellation) {
+        super.setCancellation(cancellation);
+        plotter.setCancellation(cancellation);
+    }
+}
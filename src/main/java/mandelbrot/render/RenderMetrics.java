@@ -0,0 +1,119 @@
+package mandelbrot.render;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Running totals of one frame, cheap enough to keep on: the workers add to striped counters once per tile (never
+//per pixel) and the totals are only summed up when the frame is done.
+public class RenderMetrics {
+
+    private final LongAdder tiles = new LongAdder();
+    private final LongAdder tileNanos = new LongAdder();
+    private final LongAccumulator slowestTile = new LongAccumulator(Math::max, 0);
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder pixels = new LongAdder();
+    private final LongAdder counts = new LongAdder();
+    private final LongAdder interior = new LongAdder();
+
+    public void reset() {
+        tiles.reset();
+        tileNanos.reset();
+        slowestTile.reset();
+        tasks.reset();
+        queueNanos.reset();
+        pixels.reset();
+        counts.reset();
+        interior.reset();
+    }
+
+    public void tile(long nanos) {
+        tiles.increment();
+        tileNanos.add(nanos);
+        slowestTile.accumulate(nanos);
+    }
+
+    //How long a worker task sat in the pool queue before it started taking tiles.
+    public void queued(long nanos) {
+        tasks.increment();
+        queueNanos.add(nanos);
+    }
+
+    //Plotted pixels, the sum of their counts and how many of them reached maxIterations.
+    public void pixels(long pixels, long counts, long interior) {
+        this.pixels.add(pixels);
+        this.counts.add(counts);
+        this.interior.add(interior);
+    }
+
+    //The frame so far; executed iterations and lane steps come from the plotter, which counts them across frames.
+    public Snapshot snapshot(long frameNanos, long iterations, long activeLanes, long laneSlots) {
+        return new Snapshot(frameNanos, tiles.sum(), tileNanos.sum(), slowestTile.get(), tasks.sum(),
+                queueNanos.sum(), pixels.sum(), counts.sum(), iterations, interior.sum(), activeLanes, laneSlots);
+    }
+
+    public static final class Snapshot {
+        public final long frameNanos;
+        public final long tiles;
+        public final long tileNanos;
+        public final long slowestTileNanos;
+        public final long tasks;
+        public final long queueNanos;
+        public final long pixels;
+        //what the counts add up to, pixels settled early count as the full limit
+        public final long counts;
+        //what the plotter actually iterated
+        public final long iterations;
+        public final long interior;
+        public final long activeLanes;
+        public final long laneSlots;
+
+        private Snapshot(long frameNanos, long tiles, long tileNanos, long slowestTileNanos, long tasks,
+                         long queueNanos, long pixels, long counts, long iterations, long interior,
+                         long activeLanes, long laneSlots) {
+            this.frameNanos = frameNanos;
+            this.tiles = tiles;
+            this.tileNanos = tileNanos;
+            this.slowestTileNanos = slowestTileNanos;
+            this.tasks = tasks;
+            this.queueNanos = queueNanos;
+            this.pixels = pixels;
+            this.counts = counts;
+            this.iterations = iterations;
+            this.interior = interior;
+            this.activeLanes = activeLanes;
+            this.laneSlots = laneSlots;
+        }
+
+        public double getIterationsPerSecond() {
+            return frameNanos == 0 ? 0 : iterations * 1e9 / frameNanos;
+        }
+
+        //share of the plotted pixels that reached maxIterations
+        public double getInteriorShare() {
+            return pixels == 0 ? 0 : (double) interior / pixels;
+        }
+
+        //share of the vector lane steps that still had a pixel iterating, NaN when no vector plotter ran
+        public double getLaneUtilisation() {
+            return laneSlots == 0 ? Double.NaN : (double) activeLanes / laneSlots;
+        }
+
+        public double getMeanTileMillis() {
+            return tiles == 0 ? 0 : tileNanos / 1e6 / tiles;
+        }
+
+        public double getMeanQueueMillis() {
+            return tasks == 0 ? 0 : queueNanos / 1e6 / tasks;
+        }
+
+        @Override
+        public String toString() {
+            String lanes = laneSlots == 0 ? "-" : String.format("%.0f%%", 100 * getLaneUtilisation());
+            //mean and slowest tile, mean wait of the worker tasks
+            return String.format("%.3g it/s  max %.0f%%  lanes %s  tile %.1f/%.1fms  queue %.2fms",
+                    getIterationsPerSecond(), 100 * getInteriorShare(), lanes,
+                    getMeanTileMillis(), slowestTileNanos / 1e6, getMeanQueueMillis());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package mandelbrot.render;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+//Finished tiles of earlier frames, so a view that comes back (zooming out to where we just were, switching sets
+//back and forth) is assembled from them instead of being plotted again. Every zoom level is a layer of square
+//tiles on a grid anchored at pixel 0 of the plane, tiles are evicted least recently used first once the cached
+//counts and magnitudes take more than the budget.
+public class TileCache {
+
+    private final int tileSize;
+    private final long tileBytes;
+    private final LinkedHashMap<Key, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long budget;
+
+    public TileCache(int tileSize, long budget) {
+        this.tileSize = tileSize;
+        this.tileBytes = (long) tileSize * tileSize * (Integer.BYTES + Float.BYTES);
+        setBudget(budget);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public synchronized Tile get(Layer layer, long column, long row) {
+        return tiles.get(new Key(layer, column, row));
+    }
+
+    //Whether the budget fits a tile at all.
+    public synchronized boolean isEnabled() {
+        return budget >= tileBytes;
+    }
+
+    public synchronized boolean contains(Layer layer, long column, long row) {
+        return tiles.containsKey(new Key(layer, column, row));
+    }
+
+    public synchronized void put(Layer layer, long column, long row, Tile tile) {
+        tiles.put(new Key(layer, column, row), tile);
+        evict();
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    public synchronized void setBudget(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Cache budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Tile> eldest = tiles.values().iterator();
+        while (tiles.size() * tileBytes > budget && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    //Counts and final |z|^2 of one tile, row-major.
+    public static final class Tile {
+        public final int[] iterations;
+        public final float[] magnitudes;
+
+        public Tile(int tileSize) {
+            iterations = new int[tileSize * tileSize];
+            magnitudes = new float[tileSize * tileSize];
+        }
+    }
+
+    //Everything besides the tile position that decides the counts of a tile. The source is whatever produced
+    //them (precision, subdivision); the phase is where the frame pixels sit between whole pixels of the plane
+    //grid, in millionths of a pixel, so only frames whose pixels line up share tiles.
+    public static final class Layer {
+        private final Object source;
+        private final String set;
+        private final double startX;
+        private final double startY;
+        private final int maxIterations;
+        private final double zoom;
+        private final long phaseX;
+        private final long phaseY;
+
+        public Layer(Object source, String set, double startX, double startY, int maxIterations, double zoom,
+                     long phaseX, long phaseY) {
+            this.source = source;
+            this.set = set;
+            this.startX = startX;
+            this.startY = startY;
+            this.maxIterations = maxIterations;
+            this.zoom = zoom;
+            this.phaseX = phaseX;
+            this.phaseY = phaseY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Layer)) return false;
+            Layer layer = (Layer) o;
+            return source == layer.source
+                    && set.equals(layer.set)
+                    && Double.compare(layer.startX, startX) == 0
+                    && Double.compare(layer.startY, startY) == 0
+                    && maxIterations == layer.maxIterations
+                    && Double.compare(layer.zoom, zoom) == 0
+                    && phaseX == layer.phaseX
+                    && phaseY == layer.phaseY;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(source), set, startX, startY, maxIterations, zoom,
+                    phaseX, phaseY);
+        }
+    }
+
+    private static final class Key {
+        private final Layer layer;
+        private final long column;
+        private final long row;
+
+        private Key(Layer layer, long column, long row) {
+            this.layer = layer;
+            this.column = column;
+            this.row = row;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return column == key.column && row == key.row && layer.equals(key.layer);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(layer, column, row);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package mandelbrot.render;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//One tile of the tile scheduler, its duration is the tile's wall time.
+@Name("mandelbrot.Tile")
+@Label("Tile")
+@Category("Mandelbrot")
+@Description("A tile plotted by a worker")
+public class TileEvent extends jdk.jfr.Event {
+    @Label("X")
+    public int x;
+    @Label("Y")
+    public int y;
+    @Label("Width")
+    public int width;
+    @Label("Height")
+    public int height;
+}
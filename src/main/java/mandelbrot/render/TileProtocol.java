@@ -0,0 +1,182 @@
+package mandelbrot.render;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+//What RemotePlotter and TileServer say to each other, big-endian as DataOutput writes it:
+//  handshake  client MAGIC, VERSION; server the number of connections it takes at once
+//  request    precision, set, avx, subdivision, maxIterations, start z, reference x and y, reference step, then
+//             the tile: minx, miny, step, width, height; strings are an unsigned short length and UTF-8 bytes
+//  response   OK, length, the deflated counts and |z|^2 of the tile row-major; or FAILED and a message
+final class TileProtocol {
+
+    static final int MAGIC = 0x4d425453;
+    static final int VERSION = 2;
+    static final int OK = 0;
+    static final int FAILED = 1;
+    //a count and a magnitude
+    static final int PIXEL_BYTES = Integer.BYTES + Float.BYTES;
+    //servers reject tiles with a longer side and strings with more bytes before they plot anything; the decimals
+    //of a reference stay far below it at any depth a perturbation plotter reaches
+    static final int MAX_TILE_SIZE = 2048;
+    static final int MAX_STRING_BYTES = 4096;
+    //a perturbation plotter keeps eight doubles of reference orbit per iteration, 64 MB at this limit
+    static final int MAX_ITERATIONS = 1_000_000;
+
+    private TileProtocol() {
+    }
+
+    static final class Request {
+        Precision precision;
+        String set;
+        boolean avx;
+        boolean subdivision;
+        int maxIterations;
+        double startX;
+        double startY;
+        BigDecimal referenceX;
+        BigDecimal referenceY;
+        double referenceStep;
+        double minx;
+        double miny;
+        double step;
+        int width;
+        int height;
+
+        void write(DataOutputStream out) throws IOException {
+            writeString(out, precision.name());
+            writeString(out, set);
+            out.writeBoolean(avx);
+            out.writeBoolean(subdivision);
+            out.writeInt(maxIterations);
+            out.writeDouble(startX);
+            out.writeDouble(startY);
+            writeString(out, referenceX.toString());
+            writeString(out, referenceY.toString());
+            out.writeDouble(referenceStep);
+            out.writeDouble(minx);
+            out.writeDouble(miny);
+            out.writeDouble(step);
+            out.writeInt(width);
+            out.writeInt(height);
+        }
+
+        //Fails on a request no plotter should be set up for, the connection is not worth keeping after one.
+        static Request read(DataInputStream in) throws IOException {
+            Request request = new Request();
+            try {
+                request.precision = Precision.valueOf(readString(in));
+                request.set = readString(in);
+                request.avx = in.readBoolean();
+                request.subdivision = in.readBoolean();
+                request.maxIterations = in.readInt();
+                request.startX = in.readDouble();
+                request.startY = in.readDouble();
+                request.referenceX = new BigDecimal(readString(in));
+                request.referenceY = new BigDecimal(readString(in));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad tile request: " + e.getMessage(), e);
+            }
+            request.referenceStep = in.readDouble();
+            request.minx = in.readDouble();
+            request.miny = in.readDouble();
+            request.step = in.readDouble();
+            request.width = in.readInt();
+            request.height = in.readInt();
+
+            if (request.maxIterations <= 0 || request.maxIterations > MAX_ITERATIONS) {
+                throw new IOException("Max iterations must be within 1.." + MAX_ITERATIONS + ": "
+                        + request.maxIterations);
+            }
+            if (!fits(request.width, request.height)) {
+                throw new IOException("Tile of " + request.width + " x " + request.height
+                        + " pixels has a side outside 1.." + MAX_TILE_SIZE);
+            }
+            return request;
+        }
+
+        //The view the tile belongs to, as far as choosing and setting up a plotter goes.
+        View getView() {
+            return new View(referenceX, referenceY, 1 / referenceStep, maxIterations, startX, startY, set,
+                    avx, subdivision, false, false);
+        }
+    }
+
+    //Whether a server takes a tile of width x height pixels.
+    static boolean fits(int width, int height) {
+        return width > 0 && height > 0 && width <= MAX_TILE_SIZE && height <= MAX_TILE_SIZE;
+    }
+
+    //More bytes than compress can write for a tile of pixels pixels: the most conservative bound zlib gives for
+    //deflate, whatever the level, plus room for the header and checksum.
+    static int maxCompressed(int pixels) {
+        int size = pixels * PIXEL_BYTES;
+        return size + (size >> 3) + (size >> 6) + 64;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException("String of " + bytes.length + " bytes is longer than " + MAX_STRING_BYTES);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length > MAX_STRING_BYTES) {
+            throw new IOException("String of " + length + " bytes is longer than " + MAX_STRING_BYTES);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //Deflates the counts and then the magnitudes of the first pixels pixels into out, through raw.
+    static void compress(Deflater deflater, int[] counts, float[] magnitudes, int pixels, ByteBuffer raw,
+                         ByteArrayOutputStream out) throws IOException {
+        raw.clear();
+        raw.asIntBuffer().put(counts, 0, pixels);
+        raw.position(pixels * Integer.BYTES);
+        raw.asFloatBuffer().put(magnitudes, 0, pixels);
+
+        deflater.reset();
+        out.reset();
+        DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater);
+        deflated.write(raw.array(), 0, pixels * PIXEL_BYTES);
+        deflated.finish();
+    }
+
+    //Inflates what compress wrote for a tile of pixels pixels back into raw.
+    static void decompress(Inflater inflater, byte[] data, int length, int pixels, ByteBuffer raw)
+            throws IOException {
+        int size = pixels * PIXEL_BYTES;
+        int read = 0;
+        inflater.reset();
+        inflater.setInput(data, 0, length);
+        try {
+            while (read < size && !inflater.finished()) {
+                int inflated = inflater.inflate(raw.array(), read, size - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt tile payload", e);
+        }
+        if (read < size) {
+            throw new IOException("Tile payload has " + read + " of " + size + " bytes");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package mandelbrot.render;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+//Splits a region into small square tiles and lets every worker pull the next tile from a shared counter,
+//so a worker stuck on an expensive tile never holds back the others.
+public class TileScheduler {
+
+    private final ExecutorService executorService;
+    private final int workers;
+
+    private final RenderMetrics metrics = new RenderMetrics();
+
+    private int tileSize;
+    private BooleanSupplier cancellation = () -> false;
+
+    public TileScheduler(ExecutorService executorService, int workers, int tileSize) {
+        this.executorService = executorService;
+        this.workers = workers;
+        setTileSize(tileSize);
+    }
+
+    public void render(int x, int y, int width, int height, TileTask task) throws InterruptedException {
+        render(x, y, width, height, tileSize, task);
+    }
+
+    public void render(int x, int y, int width, int height, int size, TileTask task) throws InterruptedException {
+        render(x, y, width, height, size, (worker, tx, ty, tw, th) -> task.render(tx, ty, tw, th));
+    }
+
+    //Like render, but tells every tile which worker runs it, so tasks can keep state per worker (below getWorkers)
+    //that no other thread touches until the call returns.
+    public void render(int x, int y, int width, int height, int size, WorkerTask task) throws InterruptedException {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        int columns = (width + size - 1) / size;
+        int rows = (height + size - 1) / size;
+        int tiles = columns * rows;
+
+        //tiles are handed out row-major, so neighbouring tiles walk the same buffer rows
+        AtomicInteger next = new AtomicInteger();
+        int tasks = Math.min(workers, tiles);
+        CountDownLatch latch = new CountDownLatch(tasks);
+
+        for (int t = 0; t < tasks; ++t) {
+            int worker = t;
+            long submitted = System.nanoTime();
+            executorService.submit(() -> {
+                try {
+                    metrics.queued(System.nanoTime() - submitted);
+                    for (int tile = next.getAndIncrement();
+                         tile < tiles && !cancellation.getAsBoolean();
+                         tile = next.getAndIncrement()) {
+                        int tx = x + (tile % columns) * size;
+                        int ty = y + (tile / columns) * size;
+                        int tw = Math.min(size, x + width - tx);
+                        int th = Math.min(size, y + height - ty);
+
+                        TileEvent event = new TileEvent();
+                        event.begin();
+                        long start = System.nanoTime();
+                        task.render(worker, tx, ty, tw, th);
+                        metrics.tile(System.nanoTime() - start);
+                        if (event.shouldCommit()) {
+                            event.x = tx;
+                            event.y = ty;
+                            event.width = tw;
+                            event.height = th;
+                            event.commit();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+    }
+
+    //Tile and queue timings of everything rendered since the last reset, the tile tasks may add their own counts.
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public void setTileSize(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    public void setCancellation(BooleanSupplier cancellation) {
+        this.cancellation = cancellation;
+    }
+
+    @FunctionalInterface
+    public interface TileTask {
+        void render(int x, int y, int width, int height);
+    }
+
+    @FunctionalInterface
+    public interface WorkerTask {
+        void render(int worker, int x, int y, int width, int height);
+    }
+}
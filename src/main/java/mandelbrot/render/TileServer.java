@@ -0,0 +1,165 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+//Plots tiles for the RemotePlotters of other processes. Every connection gets a thread and plotters of its own, so
+//tiles of different connections never share a buffer; clients open as many connections as the server says it
+//takes. Anyone who reaches the port can have it plot, so it only listens where it is told to.
+public class TileServer implements Closeable {
+
+    private final ServerSocket socket;
+    private final int connections;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    //listens on address only, port 0 picks a free one, see getPort
+    public TileServer(InetAddress address, int port, int connections) throws IOException {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("Connections must be positive: " + connections);
+        }
+        this.socket = new ServerSocket(port, 0, address);
+        this.connections = connections;
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    //Serves connections until the server is closed.
+    public void serve() throws IOException {
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                if (socket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            clients.add(client);
+            if (socket.isClosed()) {
+                client.close();
+            }
+            Thread thread = new Thread(() -> handle(client), "tiles-" + client.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream()))) {
+            client.setTcpNoDelay(true);
+            if (in.readInt() != TileProtocol.MAGIC || in.readInt() != TileProtocol.VERSION) {
+                return;
+            }
+            out.writeInt(connections);
+            out.flush();
+
+            Tiles tiles = new Tiles();
+            while (true) {
+                TileProtocol.Request request;
+                try {
+                    request = TileProtocol.Request.read(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                tiles.plot(request, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                System.err.println("Connection from " + client.getRemoteSocketAddress() + " failed: "
+                        + e.getMessage());
+            }
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    //Stops taking connections and drops the open ones, their clients plot the tiles elsewhere.
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    //Plotter and buffers of one connection, the plotter is made again whenever the tiles need another one.
+    private static final class Tiles {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        private ByteBuffer raw = ByteBuffer.allocate(0);
+
+        private Plotter plotter;
+        private Precision precision;
+        private String set;
+        private boolean avx;
+        private boolean subdivision;
+        private int width;
+        private int height;
+
+        private void plot(TileProtocol.Request request, DataOutputStream out) throws IOException {
+            try {
+                Plotter plotter = getPlotter(request);
+                plotter.setMaxIterations(request.maxIterations);
+                plotter.setZ(request.startX, request.startY);
+                plotter.setReference(request.referenceX, request.referenceY, request.referenceStep);
+                plotter.plot(request.minx, request.miny, request.step, request.width, request.height,
+                        0, request.width);
+
+                int pixels = request.width * request.height;
+                if (raw.capacity() < pixels * TileProtocol.PIXEL_BYTES) {
+                    raw = ByteBuffer.allocate(pixels * TileProtocol.PIXEL_BYTES);
+                }
+                TileProtocol.compress(deflater, plotter.getBuffer(), plotter.getMagnitudes(), pixels, raw,
+                        compressed);
+            } catch (RuntimeException e) {
+                out.writeInt(TileProtocol.FAILED);
+                out.writeUTF(String.valueOf(e));
+                return;
+            }
+            out.writeInt(TileProtocol.OK);
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        }
+
+        private Plotter getPlotter(TileProtocol.Request request) {
+            if (plotter == null
+                    || precision != request.precision
+                    || !set.equals(request.set)
+                    || avx != request.avx
+                    || subdivision != request.subdivision
+                    || width < request.width
+                    || height < request.height) {
+                precision = request.precision;
+                set = request.set;
+                avx = request.avx;
+                subdivision = request.subdivision;
+                width = Math.max(width, request.width);
+                height = Math.max(height, request.height);
+                plotter = precision.create(request.getView(), width, height);
+            }
+            return plotter;
+        }
+    }
+}
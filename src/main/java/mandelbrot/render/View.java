@@ -0,0 +1,149 @@
+package mandelbrot.render;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+//Immutable snapshot of everything that decides what a frame looks like.
+public final class View {
+
+    //the center is exact so deep zooms can place their reference orbit; the doubles are its rounded value
+    private final BigDecimal preciseCenterX;
+    private final BigDecimal preciseCenterY;
+    private final double centerX;
+    private final double centerY;
+    private final double zoom;
+    private final int maxIterations;
+    private final double startX;
+    private final double startY;
+    private final String set;
+    private final boolean avx;
+    private final boolean subdivision;
+    private final boolean smooth;
+    //ranks the counts of the frame for colours, smooth colouring does not apply then
+    private final boolean equalised;
+
+    public View(BigDecimal centerX, BigDecimal centerY, double zoom, int maxIterations,
+                double startX, double startY, String set, boolean avx, boolean subdivision, boolean smooth,
+                boolean equalised) {
+        this.preciseCenterX = centerX;
+        this.preciseCenterY = centerY;
+        this.centerX = centerX.doubleValue();
+        this.centerY = centerY.doubleValue();
+        this.zoom = zoom;
+        this.maxIterations = maxIterations;
+        this.startX = startX;
+        this.startY = startY;
+        this.set = set;
+        this.avx = avx;
+        this.subdivision = subdivision;
+        this.smooth = smooth;
+        this.equalised = equalised;
+    }
+
+    public BigDecimal getPreciseCenterX() {
+        return preciseCenterX;
+    }
+
+    public BigDecimal getPreciseCenterY() {
+        return preciseCenterY;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public double getStartX() {
+        return startX;
+    }
+
+    public double getStartY() {
+        return startY;
+    }
+
+    public String getSet() {
+        return set;
+    }
+
+    public boolean isAVX() {
+        return avx;
+    }
+
+    public boolean isSubdivision() {
+        return subdivision;
+    }
+
+    public boolean isSmooth() {
+        return smooth;
+    }
+
+    public boolean isEqualised() {
+        return equalised;
+    }
+
+    public boolean isJulia() {
+        return set.equalsIgnoreCase("julia");
+    }
+
+    public double getStep() {
+        return 1.0 / zoom;
+    }
+
+    public double getMinX(int width) {
+        return centerX - width / 2.0 / zoom;
+    }
+
+    public double getMinY(int height) {
+        return centerY - height / 2.0 / zoom;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof View)) return false;
+        View view = (View) o;
+        return view.preciseCenterX.compareTo(preciseCenterX) == 0
+                && view.preciseCenterY.compareTo(preciseCenterY) == 0
+                && Double.compare(view.zoom, zoom) == 0
+                && maxIterations == view.maxIterations
+                && Double.compare(view.startX, startX) == 0
+                && Double.compare(view.startY, startY) == 0
+                && avx == view.avx
+                && subdivision == view.subdivision
+                && smooth == view.smooth
+                && equalised == view.equalised
+                && set.equals(view.set);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(centerX, centerY, zoom, maxIterations, startX, startY, set, avx, subdivision, smooth,
+                equalised);
+    }
+
+    @Override
+    public String toString() {
+        return "View{" +
+                "center=" + preciseCenterX + ", " + preciseCenterY +
+                ", zoom=" + zoom +
+                ", maxIterations=" + maxIterations +
+                ", start=" + startX + ", " + startY +
+                ", set=" + set +
+                ", avx=" + avx +
+                ", subdivision=" + subdivision +
+                ", smooth=" + smooth +
+                ", equalised=" + equalised +
+                '}';
+    }
+}
@@ -0,0 +1,192 @@
+package mandelbrot.render;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+
+//Connections to the TileServers of other processes, as many to each as it takes at once. Whichever plotting thread
+//needs one takes the next idle connection, so the faster workers simply end up with more tiles; a connection that
+//fails is dropped for good and its tile goes to the next one. A tile the worker reports it could not plot leaves
+//the connection as it is.
+public class WorkerPool implements Closeable {
+
+    //how long a tile may take before its worker is given up on
+    private static final int TIMEOUT = (int) TimeUnit.MINUTES.toMillis(5);
+    //how often a thread waiting for an idle connection checks whether any are left
+    private static final long POLL = 100;
+
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private final AtomicInteger alive = new AtomicInteger();
+
+    private WorkerPool() {
+    }
+
+    //Connects to every worker, which all have to be up.
+    public static WorkerPool connect(List<InetSocketAddress> workers) throws IOException {
+        WorkerPool pool = new WorkerPool();
+        try {
+            for (InetSocketAddress worker : workers) {
+                Connection first = new Connection(worker);
+                pool.add(first);
+                for (int i = 1; i < first.capacity; ++i) {
+                    pool.add(new Connection(worker));
+                }
+            }
+        } catch (IOException e) {
+            pool.close();
+            throw e;
+        }
+        return pool;
+    }
+
+    //host:port[,host:port...]
+    public static List<InetSocketAddress> parse(String workers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String worker : workers.split(",")) {
+            int colon = worker.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected host:port, got " + worker);
+            }
+            addresses.add(new InetSocketAddress(worker.substring(0, colon),
+                    Integer.parseInt(worker.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    private void add(Connection connection) {
+        connections.add(connection);
+        idle.add(connection);
+        alive.incrementAndGet();
+    }
+
+    //Connections still up, plotting threads beyond that only wait for one.
+    public int size() {
+        return alive.get();
+    }
+
+    //The next idle connection, null once none is left.
+    Connection take() throws InterruptedException {
+        while (alive.get() > 0) {
+            Connection connection = idle.poll(POLL, TimeUnit.MILLISECONDS);
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    void release(Connection connection) {
+        idle.add(connection);
+    }
+
+    void discard(Connection connection, IOException cause) {
+        System.err.println("Dropping a connection to " + connection.address + ": " + cause);
+        connection.close();
+        alive.decrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        alive.set(0);
+    }
+
+    //One socket to a worker, used by one plotting thread at a time.
+    static final class Connection {
+        private final InetSocketAddress address;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final int capacity;
+        private final Inflater inflater = new Inflater();
+        private byte[] data = new byte[0];
+        private ByteBuffer raw = ByteBuffer.allocate(0);
+
+        private Connection(InetSocketAddress address) throws IOException {
+            this.address = address;
+            socket = new Socket();
+            try {
+                socket.connect(address, TIMEOUT);
+                socket.setSoTimeout(TIMEOUT);
+                socket.setTcpNoDelay(true);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+                out.writeInt(TileProtocol.MAGIC);
+                out.writeInt(TileProtocol.VERSION);
+                out.flush();
+                capacity = in.readInt();
+            } catch (IOException e) {
+                socket.close();
+                throw new IOException("Cannot connect to worker " + address, e);
+            }
+        }
+
+        //Has the worker plot the tile and places its samples pixelStride apart, rows stride apart, from offset on.
+        //False when the worker answered that it could not plot the tile, the connection is still good then.
+        boolean plot(TileProtocol.Request request, int[] buffer, float[] magnitudes, int offset, int stride,
+                     int pixelStride) throws IOException {
+            request.write(out);
+            out.flush();
+
+            if (in.readInt() != TileProtocol.OK) {
+                System.err.println("Worker " + address + " could not plot a tile: " + in.readUTF());
+                return false;
+            }
+            int pixels = request.width * request.height;
+            int length = in.readInt();
+            if (length < 0 || length > TileProtocol.maxCompressed(pixels)) {
+                throw new IOException("Worker " + address + " answered a tile of " + pixels + " pixels with "
+                        + length + " bytes");
+            }
+            if (data.length < length) {
+                data = new byte[length];
+            }
+            in.readFully(data, 0, length);
+
+            if (raw.capacity() < pixels * TileProtocol.PIXEL_BYTES) {
+                raw = ByteBuffer.allocate(pixels * TileProtocol.PIXEL_BYTES);
+            }
+            TileProtocol.decompress(inflater, data, length, pixels, raw);
+
+            IntBuffer counts = raw.asIntBuffer();
+            FloatBuffer magnitude = raw.position(pixels * Integer.BYTES).slice().asFloatBuffer();
+            raw.clear();
+            for (int i = 0, sample = 0; i < request.height; ++i) {
+                int pixel = offset + i * stride;
+                for (int j = 0; j < request.width; ++j, ++sample, pixel += pixelStride) {
+                    buffer[pixel] = counts.get(sample);
+                    magnitudes[pixel] = magnitude.get(sample);
+                }
+            }
+            return true;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                //nothing left to send on it
+            }
+            inflater.end();
+        }
+    }
+}
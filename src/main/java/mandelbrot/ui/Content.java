@@ -1,66 +1,110 @@
 package mandelbrot.ui;
 
 import mandelbrot.plotter.*;
+import mandelbrot.render.Equaliser;
+import mandelbrot.render.FrameEvent;
+import mandelbrot.render.IterationHistogram;
+import mandelbrot.render.Palette;
+import mandelbrot.render.Precision;
+import mandelbrot.render.RenderMetrics;
+import mandelbrot.render.TileCache;
+import mandelbrot.render.TileScheduler;
+import mandelbrot.render.View;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
-import java.util.concurrent.CountDownLatch;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 import static java.awt.image.BufferedImage.TYPE_INT_RGB;
 
 public class Content extends JPanel {
 
-    private static final int[] PALETTE = {
-            new Color(66, 30, 15).getRGB(),
-            new Color(25, 7, 26).getRGB(),
-            new Color(9, 1, 47).getRGB(),
-            new Color(4, 4, 73).getRGB(),
-            new Color(0, 7, 100).getRGB(),
-            new Color(12, 44, 138).getRGB(),
-            new Color(24, 82, 177).getRGB(),
-            new Color(57, 125, 209).getRGB(),
-            new Color(134, 181, 229).getRGB(),
-            new Color(211, 236, 248).getRGB(),
-            new Color(241, 233, 191).getRGB(),
-            new Color(248, 201, 95).getRGB(),
-            new Color(255, 170, 0).getRGB(),
-            new Color(204, 128, 0).getRGB(),
-            new Color(153, 87, 0).getRGB(),
-            new Color(106, 52, 3).getRGB(),
-    };
+    //first progressive pass samples one pixel out of every PROGRESSIVE_SPACING x PROGRESSIVE_SPACING block
+    private static final int PROGRESSIVE_SPACING = 8;
+    //how far from a whole number of pixels a pan may be and still reuse the previous frame
+    private static final double PAN_TOLERANCE = 1e-6;
+    //cached tiles are this many pixels square, the cache keeps up to CACHE_BUDGET bytes of them
+    private static final int CACHE_TILE_SIZE = 64;
+    private static final long CACHE_BUDGET = 128L << 20;
+    //sub-pixel positions of the cache grid are told apart down to a millionth of a pixel
+    private static final BigDecimal GRID_PHASES = BigDecimal.valueOf(1_000_000);
+    //frames whose pixels are further out on the grid of their zoom level than this are not cached
+    private static final BigDecimal GRID_LIMIT = BigDecimal.valueOf(1L << 60);
+    //base of the samples colour gets from the cache or a clamp, no count reaches it so none goes into the metrics
+    private static final int UNPLOTTED = Integer.MAX_VALUE;
+    //auto iterations: the limit stays within AUTO_MIN..AUTO_MAX and is doubled while more than RAISE_SHARE of the
+    //pixels escape in the top NEAR_LIMIT of it, as long as a frame still fits the budget
+    private static final int AUTO_MIN = 32;
+    private static final int AUTO_MAX = 100_000;
+    private static final double NEAR_LIMIT = 1 / 8.0;
+    private static final double RAISE_SHARE = 1e-3;
+    private static final long DEFAULT_FRAME_BUDGET = 500;
+    private static final int HISTOGRAM_SLICES = 64;
 
     private final int width;
     private final int height;
 
-    private final int threads;
-
-    private double centerX;
-    private double centerY;
+    private BigDecimal centerX;
+    private BigDecimal centerY;
     private double zoom;
 
     private int maxIterations;
+    private double startX;
+    private double startY;
     private boolean avx;
+    private boolean subdivision;
+    private boolean smooth;
+    private boolean equalised;
     private String set = "Mandelbrot";
-
-    private final BufferedImage buffer;
-    private final int[] iterationsBuffer;
+    private boolean progressive = true;
+    private volatile boolean autoIterations;
+    private volatile long frameBudget = DEFAULT_FRAME_BUDGET * 1_000_000;
+
+    //every view change bumps the generation; a frame whose generation is no longer current is abandoned
+    private final Object lock = new Object();
+    private volatile long generation = 1;
+    private volatile long frameGeneration;
+
+    //view of the last completed frame, or null when the plotter buffers may hold a partial frame
+    private View lastView;
+    private Plotter lastPlotter;
+    //whether the kept orbits belong to the unfinished pixels of the last frame
+    private boolean resumable;
+    //totals of the last completed frame
+    private RenderMetrics.Snapshot lastMetrics;
+    //counts of the frame by how close they got to the limit, filled while colouring in auto mode
+    private final IterationHistogram histogram = new IterationHistogram(HISTOGRAM_SLICES);
+    //counts per nanosecond of the last frame that plotted at least one per pixel, 0 before one
+    private double throughput;
+
+    //frames are coloured into the back image and swapped to the front once shown, paint only ever draws the front
+    //one; the lock is held just for the swap and the drawing, so neither side waits on the other's work
+    private final Object frontLock = new Object();
+    private BufferedImage front;
+    private BufferedImage back;
+    private int[] pixels;
     private final ExecutorService executorService;
+    private final TileScheduler scheduler;
+    private final TileCache cache;
+    private final Equaliser equaliser;
 
-    private final Plotter mandelbrotPlotter;
-    private final Plotter mandelbrotAVXPlotter;
-    private final Plotter juliaPlotter;
-    private final Plotter juliaAVXPlotter;
+    private final Engine floatEngine;
+    private final Engine doubleEngine;
+    private final Engine doubleDoubleEngine;
+    private final Engine perturbationEngine;
 
-    public Content(int width, int height, int threads, double centerX, double centerY, double zoom, int maxIterations) {
+    public Content(int width, int height, int threads, int tileSize,
+                   BigDecimal centerX, BigDecimal centerY, double zoom, int maxIterations) {
         super();
 
         this.width = width;
         this.height = height;
-        this.threads = threads;
         this.centerX = centerX;
         this.centerY = centerY;
         this.zoom = zoom;
@@ -68,99 +112,773 @@ public class Content extends JPanel {
 
         setPreferredSize(new Dimension(width, height));
 
-        buffer = new BufferedImage(width, height, TYPE_INT_RGB);
-        iterationsBuffer = new int[width * height];
+        front = new BufferedImage(width, height, TYPE_INT_RGB);
+        back = new BufferedImage(width, height, TYPE_INT_RGB);
+        pixels = getPixels(back);
         executorService = Executors.newFixedThreadPool(threads);
+        scheduler = new TileScheduler(executorService, threads, tileSize);
+        scheduler.setCancellation(this::isStale);
+        cache = new TileCache(CACHE_TILE_SIZE, CACHE_BUDGET);
+        equaliser = new Equaliser(scheduler);
+
+        //floats only pay off in the vector plotters, the scalar ones are shared with the double engine
+        Plotter mandelbrot = new MandelbrotPlotter(width, height);
+        Plotter julia = new JuliaPlotter(width, height);
+        floatEngine = new Engine(
+                mandelbrot, new MandelbrotFloatAVXPlotter(width, height),
+                julia, new JuliaFloatAVXPlotter(width, height));
+        floatEngine.setCancellation(this::isStale);
+
+        doubleEngine = new Engine(
+                mandelbrot, new MandelbrotAVXPlotter(width, height),
+                julia, new JuliaAVXPlotter(width, height));
+        doubleEngine.setCancellation(this::isStale);
+
+        //only the plotter of the last frame can resume, so the plotters that can share one set of orbits
+        double[] orbitX = new double[width * height];
+        double[] orbitY = new double[width * height];
+        floatEngine.setOrbits(orbitX, orbitY);
+        doubleEngine.setOrbits(orbitX, orbitY);
+
+        doubleDoubleEngine = new Engine(
+                new DoubleDoublePlotter(width, height), new DoubleDoubleAVXPlotter(width, height),
+                new JuliaDoubleDoublePlotter(width, height), new JuliaDoubleDoubleAVXPlotter(width, height));
+        doubleDoubleEngine.setCancellation(this::isStale);
+
+        perturbationEngine = new Engine(
+                new PerturbationPlotter(width, height), new PerturbationAVXPlotter(width, height),
+                new JuliaPerturbationPlotter(width, height), new JuliaPerturbationAVXPlotter(width, height));
+        perturbationEngine.setCancellation(this::isStale);
+    }
 
-        mandelbrotPlotter = new MandelbrotPlotter(width, height);
-        mandelbrotPlotter.setMaxIterations(maxIterations);
+    @Override
+    public void paint(Graphics g) {
+        synchronized (frontLock) {
+            g.drawImage(front, 0, 0, null);
+        }
+    }
+
+    //Shows the back image: it becomes the front one and the next frame is coloured into the one shown so far.
+    private void publish() {
+        synchronized (frontLock) {
+            BufferedImage shown = back;
+            back = front;
+            front = shown;
+        }
+        pixels = getPixels(back);
+        repaint();
+    }
 
-        mandelbrotAVXPlotter = new MandelbrotAVXPlotter(width, height);
-        mandelbrotAVXPlotter.setMaxIterations(maxIterations);
+    //Copies the shown image into the back one, for frames that only colour part of it again.
+    private void carry() {
+        System.arraycopy(getPixels(front), 0, pixels, 0, pixels.length);
+    }
 
-        juliaPlotter = new JuliaPlotter(width, height);
-        juliaPlotter.setMaxIterations(maxIterations);
+    private static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
 
-        juliaAVXPlotter = new JuliaAVXPlotter(width, height);
-        juliaAVXPlotter.setMaxIterations(maxIterations);
+    public void awaitChange() throws InterruptedException {
+        synchronized (lock) {
+            while (generation == frameGeneration) {
+                lock.wait();
+            }
+        }
     }
 
-    @Override
-    public void paint(Graphics g) {
-        g.drawImage(buffer, 0, 0, null);
+    //Renders the latest view; returns false when a newer view arrived before the frame was finished.
+    public boolean update() throws InterruptedException {
+        View view;
+        synchronized (lock) {
+            view = new View(centerX, centerY, zoom, maxIterations, startX, startY, set, avx, subdivision, smooth,
+                    equalised);
+            frameGeneration = generation;
+        }
+
+        Plotter plotter = getPlotter(view);
+        plotter.setMaxIterations(view.getMaxIterations());
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), view.getStep());
+
+        RenderMetrics metrics = scheduler.getMetrics();
+        metrics.reset();
+        long iterations = plotter.getIterations();
+        long activeLanes = plotter.getActiveLanes();
+        long laneSlots = plotter.getLaneSlots();
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long frameStart = System.nanoTime();
+        histogram.reset(view.getMaxIterations());
+
+        View previous = lastView;
+        boolean sameBuffer = lastPlotter != null && lastPlotter.getBuffer() == plotter.getBuffer();
+        boolean resumable = this.resumable && lastPlotter == plotter;
+        lastView = null;
+        this.resumable = false;
+
+        Grid grid = cache.isEnabled() ? getGrid(plotter, view) : null;
+        boolean completed;
+        if (sameBuffer && canPan(previous, view)) {
+            completed = pan(plotter, previous, view);
+        } else if (sameBuffer && isMaxIterationsChange(previous, view)
+                && (resumable || view.getMaxIterations() < previous.getMaxIterations())) {
+            completed = view.getMaxIterations() > previous.getMaxIterations()
+                    ? resume(plotter, previous, view)
+                    : clamp(plotter, view);
+            //clamped counts no longer tell the pixels that escaped past the new limit from the unfinished ones
+            resumable = resumable && view.getMaxIterations() > previous.getMaxIterations();
+        } else if (grid != null && isCached(grid)) {
+            completed = assemble(plotter, view, grid);
+            resumable = false;
+        } else {
+            completed = render(plotter, view);
+            resumable = plotter.isResumable();
+        }
+
+        //taken before equalising, whose passes run on the scheduler as well and would count as tiles of the frame
+        RenderMetrics.Snapshot frameMetrics = completed
+                ? metrics.snapshot(System.nanoTime() - frameStart, plotter.getIterations() - iterations,
+                        plotter.getActiveLanes() - activeLanes, plotter.getLaneSlots() - laneSlots)
+                : null;
+
+        //ranks need the whole frame, the tiles above were coloured as usual meanwhile
+        if (completed && view.isEqualised()) {
+            equaliser.colour(plotter.getBuffer(), width, height, view.getMaxIterations(), pixels);
+            if (!isStale()) {
+                publish();
+            }
+        }
+
+        if (completed) {
+            lastView = view;
+            lastPlotter = plotter;
+            this.resumable = resumable;
+            if (grid != null) {
+                store(plotter, grid);
+            }
+
+            lastMetrics = frameMetrics;
+            if (event.shouldCommit()) {
+                event.plotter = plotter.getClass().getSimpleName();
+                event.set(lastMetrics);
+                event.commit();
+            }
+
+            //pans only colour the strips that scrolled in, their histogram does not cover the frame
+            if (autoIterations && histogram.getPixels() == (long) width * height) {
+                adapt(view, lastMetrics);
+            }
+        }
+        return completed;
     }
 
-    public void update() throws InterruptedException {
-        double minx = centerX - width / 2.0 / zoom;
-        double miny = centerY - height / 2.0 / zoom;
-        double step = 1.0 / zoom;
+    //Picks the limit of the next frame from the histogram of this one. It doubles while a noticeable share of the
+    //pixels still escapes just below the limit, or none escapes at all (deep views that have not reached any
+    //detail yet), and a frame, its unfinished pixels now taking twice as long, would fit the budget at the
+    //measured throughput. It halves when a frame that did plot was over the budget; once nothing escapes in the top
+    //three quarters it drops to twice the highest count, which leaves the top half empty so it does not bounce
+    //straight back up.
+    private void adapt(View view, RenderMetrics.Snapshot metrics) {
+        //clamped and assembled frames hardly plot, their throughput says nothing about the plotter. The throughput is
+        //in counts like the histogram it is applied to, not in the iterations actually executed
+        boolean measured = metrics.counts >= metrics.pixels && metrics.counts > 0;
+        if (measured) {
+            throughput = metrics.counts / (double) metrics.frameNanos;
+        }
+        if (throughput == 0) {
+            return;
+        }
 
-        int section = iterationsBuffer.length / threads;
-        int sectionHeight = height / threads;
-        double dh = sectionHeight / zoom;
+        int maxIterations = view.getMaxIterations();
+        double pixels = histogram.getPixels();
+        double iterations = histogram.getIterations();
+        double near = histogram.getEscapedFrom(1 - NEAR_LIMIT) / pixels;
+        int bound = histogram.getEscapedBound();
+
+        int next = maxIterations;
+        if (measured && iterations / throughput > frameBudget && histogram.getInterior() > 0) {
+            next = maxIterations / 2;
+        } else if ((near > RAISE_SHARE || bound == 0)
+                && (iterations + (double) histogram.getInterior() * maxIterations) / throughput <= frameBudget) {
+            next = maxIterations * 2;
+        } else if (bound > 0 && bound < maxIterations / 4) {
+            next = bound * 2;
+        }
+        next = Math.max(AUTO_MIN, Math.min(AUTO_MAX, next));
+        if (next == maxIterations) {
+            return;
+        }
 
-        Plotter plotter = getPlotter();
+        synchronized (lock) {
+            //unless the user picked another limit meanwhile
+            if (this.maxIterations == maxIterations) {
+                this.maxIterations = next;
+                changed();
+            }
+        }
+    }
 
-        CountDownLatch latch = new CountDownLatch(threads);
+    private boolean render(Plotter plotter, View view) throws InterruptedException {
+        if (!progressive) {
+            plot(plotter, view, 0, 0, width, height);
+            if (isStale()) {
+                return false;
+            }
+            publish();
+            return true;
+        }
 
-        for (int t = 0; t < threads; ++t) {
-            int thread = t;
-            executorService.submit(() -> {
-                plotter.plot(minx, miny + thread * dh, step,
-                        width, sectionHeight,
-                        section * thread);
-                latch.countDown();
-            });
+        //Adam7-like refinement: every level adds the three missing lattices at the current spacing,
+        //so each pixel is computed exactly once. The new samples take over three quarters of the blocks
+        //the previous level coloured.
+        int spacing = PROGRESSIVE_SPACING;
+        plotLattice(plotter, view, 0, 0, spacing, spacing);
+        while (!isStale()) {
+            publish();
+            if (spacing == 1) {
+                return true;
+            }
+            carry();
+
+            int half = spacing / 2;
+            plotLattice(plotter, view, half, 0, spacing, half);
+            plotLattice(plotter, view, 0, half, spacing, half);
+            plotLattice(plotter, view, half, half, spacing, half);
+            spacing = half;
         }
+        return false;
+    }
 
-        latch.await();
+    //Reuses the previous frame shifted by the pan and only plots the strips that scrolled into view.
+    private boolean pan(Plotter plotter, View previous, View view) throws InterruptedException {
+        int dx = (int) Math.round(panX(previous, view));
+        int dy = (int) Math.round(panY(previous, view));
 
+        plotter.shift(dx, dy);
+        //the shown image scrolls along with the counts, only the strips plotted below get coloured again
+        Graphics g = back.getGraphics();
+        g.drawImage(front, -dx, -dy, null);
+        g.dispose();
+
+        int columns = Math.abs(dx);
+        int rows = Math.abs(dy);
+        plot(plotter, view, dx > 0 ? width - columns : 0, 0, columns, height);
+        plot(plotter, view, dx > 0 ? 0 : columns, dy > 0 ? height - rows : 0, width - columns, rows);
+
+        if (isStale()) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    //Builds the frame from the cache wherever it has the tiles, only the missing ones are plotted (and cached).
+    //The strips along the edges that no whole tile covers are plotted as usual.
+    private boolean assemble(Plotter plotter, View view, Grid grid) throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+        int size = cache.getTileSize();
+
+        scheduler.render(grid.x, grid.y, grid.columns * size, grid.rows * size, size, (x, y, w, h) -> {
+            long column = grid.column(x);
+            long row = grid.row(y);
+            TileCache.Tile tile = cache.get(grid.layer, column, row);
+            if (tile != null) {
+                load(plotter, tile, x, y);
+                colour(plotter, view, x, y, w, h, 1, 1, UNPLOTTED);
+            } else {
+                plotter.plot(minx + x * step, miny + y * step, step,
+                        w, h,
+                        y * width + x, width);
+                if (isStale()) {
+                    return;
+                }
+                cache.put(grid.layer, column, row, save(plotter, x, y));
+                colour(plotter, view, x, y, w, h, 1, 1, 0);
+            }
+        });
+
+        int right = grid.x + grid.columns * size;
+        int bottom = grid.y + grid.rows * size;
+        plot(plotter, view, 0, 0, grid.x, height);
+        plot(plotter, view, right, 0, width - right, height);
+        plot(plotter, view, grid.x, 0, right - grid.x, grid.y);
+        plot(plotter, view, grid.x, bottom, right - grid.x, height - bottom);
+
+        if (isStale()) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    //Where the frame sits on the cache grid of its zoom level, or null when it is too far out to be cached.
+    private Grid getGrid(Plotter plotter, View view) {
+        BigDecimal zoom = new BigDecimal(view.getZoom());
+        BigDecimal x = view.getPreciseCenterX().multiply(zoom).subtract(BigDecimal.valueOf(width / 2.0));
+        BigDecimal y = view.getPreciseCenterY().multiply(zoom).subtract(BigDecimal.valueOf(height / 2.0));
+        if (x.abs().compareTo(GRID_LIMIT) > 0 || y.abs().compareTo(GRID_LIMIT) > 0) {
+            return null;
+        }
+
+        //the grid pixel left of and above the frame's first pixel, and how far past it that one is
+        long originX = x.setScale(0, RoundingMode.FLOOR).longValue();
+        long originY = y.setScale(0, RoundingMode.FLOOR).longValue();
+        long phaseX = x.subtract(BigDecimal.valueOf(originX)).multiply(GRID_PHASES)
+                .setScale(0, RoundingMode.HALF_UP).longValue();
+        long phaseY = y.subtract(BigDecimal.valueOf(originY)).multiply(GRID_PHASES)
+                .setScale(0, RoundingMode.HALF_UP).longValue();
+        if (phaseX == GRID_PHASES.longValue()) {
+            originX++;
+            phaseX = 0;
+        }
+        if (phaseY == GRID_PHASES.longValue()) {
+            originY++;
+            phaseY = 0;
+        }
+
+        TileCache.Layer layer = new TileCache.Layer(plotter, view.getSet(), view.getStartX(), view.getStartY(),
+                view.getMaxIterations(), view.getZoom(), phaseX, phaseY);
+        return new Grid(layer, originX, originY, cache.getTileSize());
+    }
+
+    private boolean isCached(Grid grid) {
+        for (int row = 0; row < grid.rows; ++row) {
+            for (int column = 0; column < grid.columns; ++column) {
+                if (cache.contains(grid.layer, grid.firstColumn + column, grid.firstRow + row)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //Caches the whole tiles of a completed frame that the cache does not have yet.
+    private void store(Plotter plotter, Grid grid) {
+        int size = cache.getTileSize();
+        for (int row = 0; row < grid.rows; ++row) {
+            for (int column = 0; column < grid.columns; ++column) {
+                if (!cache.contains(grid.layer, grid.firstColumn + column, grid.firstRow + row)) {
+                    cache.put(grid.layer, grid.firstColumn + column, grid.firstRow + row,
+                            save(plotter, grid.x + column * size, grid.y + row * size));
+                }
+            }
+        }
+    }
+
+    //Copies the tile with its top-left pixel at (x, y) out of the plotter buffers.
+    private TileCache.Tile save(Plotter plotter, int x, int y) {
+        int size = cache.getTileSize();
+        TileCache.Tile tile = new TileCache.Tile(size);
+        for (int row = 0; row < size; ++row) {
+            int pixel = (y + row) * width + x;
+            System.arraycopy(plotter.getBuffer(), pixel, tile.iterations, row * size, size);
+            System.arraycopy(plotter.getMagnitudes(), pixel, tile.magnitudes, row * size, size);
+        }
+        return tile;
+    }
+
+    private void load(Plotter plotter, TileCache.Tile tile, int x, int y) {
+        int size = cache.getTileSize();
+        for (int row = 0; row < size; ++row) {
+            int pixel = (y + row) * width + x;
+            System.arraycopy(tile.iterations, row * size, plotter.getBuffer(), pixel, size);
+            System.arraycopy(tile.magnitudes, row * size, plotter.getMagnitudes(), pixel, size);
+        }
+    }
+
+    //Continues the pixels the previous frame left at its lower limit, the escaped ones stay as they are.
+    private boolean resume(Plotter plotter, View previous, View view) throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+        int previousMaxIterations = previous.getMaxIterations();
+
+        scheduler.render(0, 0, width, height, (x, y, w, h) -> {
+            plotter.resume(minx + x * step, miny + y * step, step,
+                    w, h,
+                    y * width + x, width, previousMaxIterations);
+            colour(plotter, view, x, y, w, h, 1, 1, previousMaxIterations);
+        });
+
+        if (isStale()) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    //Lowers the limit of the previous frame: whatever took longer than the new limit counts as not escaped.
+    private boolean clamp(Plotter plotter, View view) throws InterruptedException {
+        int maxIterations = view.getMaxIterations();
         int[] iterations = plotter.getBuffer();
-        int[] pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
-        for (int i = 0; i < iterations.length; ++i) {
-            pixels[i] = iterations[i] == maxIterations ? 0 : PALETTE[iterations[i] % 16];
+
+        scheduler.render(0, 0, width, height, (x, y, w, h) -> {
+            for (int row = y; row < y + h; ++row) {
+                for (int pixel = row * width + x; pixel < row * width + x + w; ++pixel) {
+                    iterations[pixel] = Math.min(iterations[pixel], maxIterations);
+                }
+            }
+            colour(plotter, view, x, y, w, h, 1, 1, UNPLOTTED);
+        });
+
+        if (isStale()) {
+            return false;
         }
+        publish();
+        return true;
+    }
 
-        repaint();
+    //Whether the view only changed the limit (and maybe the colouring, which resuming and clamping redo anyway).
+    private boolean isMaxIterationsChange(View previous, View view) {
+        return previous != null
+                && previous.getMaxIterations() != view.getMaxIterations()
+                && previous.getPreciseCenterX().compareTo(view.getPreciseCenterX()) == 0
+                && previous.getPreciseCenterY().compareTo(view.getPreciseCenterY()) == 0
+                && previous.getZoom() == view.getZoom()
+                && previous.getStartX() == view.getStartX()
+                && previous.getStartY() == view.getStartY()
+                && previous.isAVX() == view.isAVX()
+                && previous.isSubdivision() == view.isSubdivision()
+                && previous.getSet().equals(view.getSet());
     }
 
-    private Plotter getPlotter() {
-        if (set.equalsIgnoreCase("mandelbrot")) {
-            return avx ? mandelbrotAVXPlotter : mandelbrotPlotter;
-        } else {
-            return avx ? juliaAVXPlotter : juliaPlotter;
+    private boolean canPan(View previous, View view) {
+        if (previous == null
+                || previous.getZoom() != view.getZoom()
+                || previous.getMaxIterations() != view.getMaxIterations()
+                || previous.getStartX() != view.getStartX()
+                || previous.getStartY() != view.getStartY()
+                || previous.isAVX() != view.isAVX()
+                || previous.isSmooth() != view.isSmooth()
+                || previous.isEqualised() != view.isEqualised()
+                || !previous.getSet().equals(view.getSet())) {
+            return false;
+        }
+
+        double dx = panX(previous, view);
+        double dy = panY(previous, view);
+        return Math.abs(dx) < width && Math.abs(dy) < height
+                && Math.abs(dx - Math.rint(dx)) < PAN_TOLERANCE
+                && Math.abs(dy - Math.rint(dy)) < PAN_TOLERANCE;
+    }
+
+    //Pan in pixels, taken from the exact centers so it stays accurate at any depth.
+    private double panX(View previous, View view) {
+        return view.getPreciseCenterX().subtract(previous.getPreciseCenterX()).doubleValue() * view.getZoom();
+    }
+
+    private double panY(View previous, View view) {
+        return view.getPreciseCenterY().subtract(previous.getPreciseCenterY()).doubleValue() * view.getZoom();
+    }
+
+    private double getMinX(Plotter plotter, View view) {
+        return (plotter.isRelative() ? 0 : view.getCenterX()) - width / 2.0 / view.getZoom();
+    }
+
+    private double getMinY(Plotter plotter, View view) {
+        return (plotter.isRelative() ? 0 : view.getCenterY()) - height / 2.0 / view.getZoom();
+    }
+
+    private void plot(Plotter plotter, View view, int x, int y, int w, int h) throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+
+        scheduler.render(x, y, w, h, (tx, ty, tw, th) -> {
+            plotter.plot(minx + tx * step, miny + ty * step, step,
+                    tw, th,
+                    ty * width + tx, width);
+            colour(plotter, view, tx, ty, tw, th, 1, 1, 0);
+        });
+    }
+
+    //Plots the lattice of pixels (originX + k * spacing, originY + l * spacing) and colours each of them over
+    //a block x block square.
+    private void plotLattice(Plotter plotter, View view, int originX, int originY, int spacing, int block)
+            throws InterruptedException {
+        double step = view.getStep();
+        double minx = getMinX(plotter, view);
+        double miny = getMinY(plotter, view);
+
+        int columns = (width - originX + spacing - 1) / spacing;
+        int rows = (height - originY + spacing - 1) / spacing;
+        int tileSize = Math.max(1, scheduler.getTileSize() / spacing);
+
+        scheduler.render(0, 0, columns, rows, tileSize, (x, y, w, h) -> {
+            int px = originX + x * spacing;
+            int py = originY + y * spacing;
+            plotter.plot(minx + px * step, miny + py * step, step * spacing,
+                    w, h,
+                    py * width + px, width * spacing, spacing);
+            colour(plotter, view, px, py, w, h, spacing, block, 0);
+        });
+    }
+
+    //Colours the w x h samples from pixel (x, y) on, spacing pixels apart, straight into the image. Runs in the
+    //tile task that plotted them, every sample covering the block x block pixels from it to the bottom right.
+    //Samples at or above base were plotted and go into the frame metrics with their counts past base.
+    private void colour(Plotter plotter, View view, int x, int y, int w, int h, int spacing, int block, int base) {
+        int maxIterations = view.getMaxIterations();
+        boolean smooth = view.isSmooth();
+        int[] iterations = plotter.getBuffer();
+        float[] magnitudes = plotter.getMagnitudes();
+        long[] counts = autoIterations ? histogram.newCounts() : null;
+        long plotted = 0;
+        long total = 0;
+        long interior = 0;
+
+        for (int i = 0; i < h; ++i) {
+            int py = y + i * spacing;
+            int rows = Math.min(block, height - py);
+            for (int j = 0; j < w; ++j) {
+                int px = x + j * spacing;
+                int sample = py * width + px;
+                int it = iterations[sample];
+                if (counts != null) {
+                    histogram.count(counts, it);
+                }
+                if (it >= base) {
+                    plotted++;
+                    total += it - base;
+                    if (it == maxIterations) {
+                        interior++;
+                    }
+                }
+                int colour = smooth
+                        ? Palette.smooth(it, magnitudes[sample], maxIterations)
+                        : Palette.banded(it, maxIterations);
+
+                int columns = Math.min(block, width - px);
+                for (int r = 0; r < rows; ++r) {
+                    int pixel = sample + r * width;
+                    for (int c = 0; c < columns; ++c) {
+                        pixels[pixel + c] = colour;
+                    }
+                }
+            }
+        }
+        if (counts != null) {
+            histogram.add(counts);
+        }
+        if (plotted > 0) {
+            scheduler.getMetrics().pixels(plotted, total, interior);
+        }
+    }
+
+    private boolean isStale() {
+        return generation != frameGeneration;
+    }
+
+    private void changed() {
+        generation++;
+        lock.notifyAll();
+    }
+
+    private Plotter getPlotter(View view) {
+        switch (Precision.of(view)) {
+            case FLOAT:
+                return floatEngine.get(view);
+            case DOUBLE:
+                return doubleEngine.get(view);
+            case DOUBLE_DOUBLE:
+                return doubleDoubleEngine.get(view);
+            default:
+                return perturbationEngine.get(view);
+        }
+    }
+
+    //Tile timings, iterations, interior share and lane utilisation of the last completed frame, null before one.
+    public RenderMetrics.Snapshot getMetrics() {
+        return lastMetrics;
+    }
+
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    //In auto mode the limit follows the iteration histogram of the frames, see adapt.
+    public void setAutoIterations(boolean autoIterations) {
+        synchronized (lock) {
+            this.autoIterations = autoIterations;
+            changed();
         }
     }
 
+    //Frame time auto mode stays within when it raises the limit.
+    public void setFrameBudget(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Frame budget must be positive: " + millis);
+        }
+        frameBudget = millis * 1_000_000;
+    }
+
+    //The limit of the latest view, auto mode changes it between frames.
+    public int getMaxIterations() {
+        synchronized (lock) {
+            return maxIterations;
+        }
+    }
+
+    public void setTileSize(int tileSize) {
+        scheduler.setTileSize(tileSize);
+    }
+
+    //Bytes of finished tiles kept for views that come back, 0 turns the cache off.
+    public void setCacheBudget(long budget) {
+        cache.setBudget(budget);
+    }
+
     public void setZoom(double zoom) {
-        this.zoom = zoom;
+        synchronized (lock) {
+            this.zoom = zoom;
+            changed();
+        }
     }
 
     public void setMaxIterations(int maxIterations) {
-        this.maxIterations = maxIterations;
-        this.juliaPlotter.setMaxIterations(maxIterations);
-        this.juliaAVXPlotter.setMaxIterations(maxIterations);
-        this.mandelbrotPlotter.setMaxIterations(maxIterations);
-        this.mandelbrotAVXPlotter.setMaxIterations(maxIterations);
+        synchronized (lock) {
+            this.maxIterations = maxIterations;
+            changed();
+        }
     }
 
     public void setStartZ(double x, double y) {
-        this.juliaPlotter.setZ(x, y);
-        this.juliaAVXPlotter.setZ(x, y);
-        this.mandelbrotPlotter.setZ(x, y);
-        this.mandelbrotAVXPlotter.setZ(x, y);
+        synchronized (lock) {
+            startX = x;
+            startY = y;
+            changed();
+        }
     }
 
-    public void setCenter(double x, double y) {
-        centerX = x;
-        centerY = y;
+    public void setCenter(BigDecimal x, BigDecimal y) {
+        synchronized (lock) {
+            centerX = x;
+            centerY = y;
+            changed();
+        }
     }
 
     public void setAVX(boolean avx) {
-        this.avx = avx;
+        synchronized (lock) {
+            this.avx = avx;
+            changed();
+        }
+    }
+
+    public void setSubdivision(boolean subdivision) {
+        synchronized (lock) {
+            this.subdivision = subdivision;
+            changed();
+        }
+    }
+
+    public void setSmooth(boolean smooth) {
+        synchronized (lock) {
+            this.smooth = smooth;
+            changed();
+        }
+    }
+
+    public void setEqualised(boolean equalised) {
+        synchronized (lock) {
+            this.equalised = equalised;
+            changed();
+        }
     }
 
     public void setSet(String set) {
-        this.set = set;
+        synchronized (lock) {
+            this.set = set;
+            changed();
+        }
+    }
+
+    //The whole cache tiles a frame covers: tile (firstColumn, firstRow) of the layer has its top-left pixel at
+    //frame pixel (x, y).
+    private class Grid {
+        private final TileCache.Layer layer;
+        private final long firstColumn;
+        private final long firstRow;
+        private final int x;
+        private final int y;
+        private final int columns;
+        private final int rows;
+        private final int size;
+
+        private Grid(TileCache.Layer layer, long originX, long originY, int size) {
+            this.layer = layer;
+            this.size = size;
+            firstColumn = Math.floorDiv(originX + size - 1, size);
+            firstRow = Math.floorDiv(originY + size - 1, size);
+            x = (int) (firstColumn * size - originX);
+            y = (int) (firstRow * size - originY);
+            columns = Math.max(0, (width - x) / size);
+            rows = Math.max(0, (height - y) / size);
+        }
+
+        private long column(int x) {
+            return firstColumn + (x - this.x) / size;
+        }
+
+        private long row(int y) {
+            return firstRow + (y - this.y) / size;
+        }
+    }
+
+    //Scalar and AVX plotters of one precision for both sets, each also wrapped for subdivision.
+    private static class Engine {
+        private final Plotter mandelbrot;
+        private final Plotter mandelbrotAVX;
+        private final Plotter julia;
+        private final Plotter juliaAVX;
+
+        private final Plotter mandelbrotSubdivision;
+        private final Plotter mandelbrotAVXSubdivision;
+        private final Plotter juliaSubdivision;
+        private final Plotter juliaAVXSubdivision;
+
+        private Engine(Plotter mandelbrot, Plotter mandelbrotAVX, Plotter julia, Plotter juliaAVX) {
+            this.mandelbrot = mandelbrot;
+            this.mandelbrotAVX = mandelbrotAVX;
+            this.julia = julia;
+            this.juliaAVX = juliaAVX;
+
+            mandelbrotSubdivision = new SubdivisionPlotter(mandelbrot);
+            mandelbrotAVXSubdivision = new SubdivisionPlotter(mandelbrotAVX);
+            juliaSubdivision = new SubdivisionPlotter(julia);
+            juliaAVXSubdivision = new SubdivisionPlotter(juliaAVX);
+        }
+
+        private Plotter get(View view) {
+            if (view.isJulia()) {
+                if (view.isSubdivision()) {
+                    return view.isAVX() ? juliaAVXSubdivision : juliaSubdivision;
+                }
+                return view.isAVX() ? juliaAVX : julia;
+            } else {
+                if (view.isSubdivision()) {
+                    return view.isAVX() ? mandelbrotAVXSubdivision : mandelbrotSubdivision;
+                }
+                return view.isAVX() ? mandelbrotAVX : mandelbrot;
+            }
+        }
+
+        //the subdivision wrappers fill pixels without orbits, so only the plain plotters keep them
+        private void setOrbits(double[] orbitX, double[] orbitY) {
+            mandelbrot.setOrbits(orbitX, orbitY);
+            mandelbrotAVX.setOrbits(orbitX, orbitY);
+            julia.setOrbits(orbitX, orbitY);
+            juliaAVX.setOrbits(orbitX, orbitY);
+        }
+
+        //the wrappers pass it on to the plotters they wrap
+        private void setCancellation(BooleanSupplier cancellation) {
+            mandelbrotSubdivision.setCancellation(cancellation);
+            mandelbrotAVXSubdivision.setCancellation(cancellation);
+            juliaSubdivision.setCancellation(cancellation);
+            juliaAVXSubdivision.setCancellation(cancellation);
+        }
     }
 }
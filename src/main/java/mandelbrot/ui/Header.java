@@ -1,5 +1,7 @@
 package mandelbrot.ui;
 
+import mandelbrot.render.RenderMetrics;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -22,6 +24,9 @@ public class Header extends JPanel {
     private final SetInput setInput;
 
     private final AVXSelector avxSelector;
+    private final SubdivisionSelector subdivisionSelector;
+    private final SmoothSelector smoothSelector;
+    private final EqualisedSelector equalisedSelector;
 
     public Header(int contentWidth, double centerX, double centerY, double zoom, int maxIterations) {
         super();
@@ -32,9 +37,12 @@ public class Header extends JPanel {
 
         this.stats = new Stats(350, 40);
         this.maxIterationsInput = new MaxIterationsInput(215, 30, maxIterations);
-        this.startInput = new StartInput(300, 40, 0, 0);
+        this.startInput = new StartInput(220, 40, 0, 0);
         this.zoomInput = new ZoomInput(80, 40);
         this.avxSelector = new AVXSelector(80, 40);
+        this.subdivisionSelector = new SubdivisionSelector(120, 40);
+        this.smoothSelector = new SmoothSelector(100, 40);
+        this.equalisedSelector = new EqualisedSelector(100, 40);
         this.setInput = new SetInput(150, 40);
 
         setPreferredSize(new Dimension(contentWidth, 40));
@@ -52,6 +60,12 @@ public class Header extends JPanel {
         add(setInput);
         add(createSeparator());
         add(avxSelector);
+        add(createSeparator());
+        add(subdivisionSelector);
+        add(createSeparator());
+        add(smoothSelector);
+        add(createSeparator());
+        add(equalisedSelector);
     }
 
     private Component createSeparator() {
@@ -73,14 +87,24 @@ public class Header extends JPanel {
         zoom = z;
     }
 
-    public void update(float delta) {
-        stats.update(delta, centerX, centerY, zoom);
+    //metrics may be null, then only the frame time is shown
+    public void update(float delta, RenderMetrics.Snapshot metrics) {
+        stats.update(delta, centerX, centerY, zoom, metrics);
     }
 
     public void onMaxIterationsChanged(Consumer<Integer> callback) {
         maxIterationsInput.onValueChanged(callback);
     }
 
+    public void onAutoIterationsChanged(Consumer<Boolean> callback) {
+        maxIterationsInput.onAutoChanged(callback);
+    }
+
+    //shows a limit picked by auto mode, without reporting it back as an edit; on the event dispatch thread only
+    public void setMaxIterations(int maxIterations) {
+        maxIterationsInput.setValue(maxIterations);
+    }
+
     public void onStartZChanged(BiConsumer<Double, Double> callback) {
         startInput.onValueChanged(callback);
     }
@@ -89,6 +113,18 @@ public class Header extends JPanel {
         avxSelector.onChanged(callback);
     }
 
+    public void onSubdivisionChanged(Consumer<Boolean> callback) {
+        subdivisionSelector.onChanged(callback);
+    }
+
+    public void onSmoothChanged(Consumer<Boolean> callback) {
+        smoothSelector.onChanged(callback);
+    }
+
+    public void onEqualisedChanged(Consumer<Boolean> callback) {
+        equalisedSelector.onChanged(callback);
+    }
+
     public void onSetChanged(Consumer<String> callback) {
         setInput.onChange(callback);
     }
@@ -104,6 +140,7 @@ public class Header extends JPanel {
     private static class Stats extends JPanel {
         private final int height;
         private final int fontSize = 14;
+        private final int metricsFontSize = 10;
 
         private final BufferedImage buffer;
 
@@ -124,7 +161,7 @@ public class Header extends JPanel {
             g.drawImage(buffer, 0, 0, null);
         }
 
-        public void update(float delta, double centerX, double centerY, double zoom) {
+        public void update(float delta, double centerX, double centerY, double zoom, RenderMetrics.Snapshot metrics) {
             Graphics2D g2d = buffer.createGraphics();
             g2d.setBackground(Color.BLACK);
             g2d.setColor(Color.LIGHT_GRAY);
@@ -135,7 +172,11 @@ public class Header extends JPanel {
 
             g2d.drawString(String.format("%6.4f (s) \t C: %,.2f, %,.2f \t Zoom: %6.3ex",
                             delta, centerX, centerY, zoom),
-                    5, height - fontSize);
+                    5, fontSize + 2);
+            if (metrics != null) {
+                g2d.setFont(font.deriveFont(Font.PLAIN, metricsFontSize));
+                g2d.drawString(metrics.toString(), 5, height - 5);
+            }
 
             repaint();
         }
@@ -143,20 +184,28 @@ public class Header extends JPanel {
 
     private static class MaxIterationsInput extends JPanel {
         private final JSpinner maxIterations;
+        private final JCheckBox auto;
+        //set while setValue runs, only ever touched on the event dispatch thread like the spinner
+        private boolean showing;
 
         private MaxIterationsInput(int width, int height, int maxIterations) {
             this.maxIterations = new JSpinner(new SpinnerNumberModel(100, 10, 100000, 10));
             this.maxIterations.setBackground(Color.BLACK);
             this.maxIterations.setValue(maxIterations);
 
-            JLabel label = new JLabel("Max Iterations");
+            JLabel label = new JLabel("Iterations");
             label.setForeground(Color.LIGHT_GRAY);
             label.setFont(label.getFont().deriveFont(Font.BOLD, 14));
 
+            auto = new JCheckBox("Auto", false);
+            auto.setForeground(Color.LIGHT_GRAY);
+            auto.setBackground(Color.BLACK);
+
             setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
 
             add(label);
             add(this.maxIterations);
+            add(auto);
 
             setBackground(Color.BLACK);
             setPreferredSize(new Dimension(width, height));
@@ -166,7 +215,24 @@ public class Header extends JPanel {
         }
 
         public void onValueChanged(Consumer<Integer> callback) {
-            maxIterations.addChangeListener(e -> callback.accept((Integer) maxIterations.getValue()));
+            maxIterations.addChangeListener(e -> {
+                if (!showing) {
+                    callback.accept((Integer) maxIterations.getValue());
+                }
+            });
+        }
+
+        public void onAutoChanged(Consumer<Boolean> callback) {
+            auto.addActionListener(e -> callback.accept(auto.isSelected()));
+        }
+
+        public void setValue(int value) {
+            showing = true;
+            try {
+                maxIterations.setValue(value);
+            } finally {
+                showing = false;
+            }
         }
     }
 
@@ -303,6 +369,87 @@ public class Header extends JPanel {
         }
     }
 
+    static class SubdivisionSelector extends JPanel {
+
+        private final JCheckBox checkBox;
+
+        public SubdivisionSelector(int width, int height) {
+            checkBox = new JCheckBox("Subdivide", false);
+
+            JLabel label = new JLabel("Subdivide");
+            label.setForeground(Color.LIGHT_GRAY);
+            label.setFont(label.getFont().deriveFont(Font.BOLD, 14));
+
+            setBackground(Color.BLACK);
+            setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+            setPreferredSize(new Dimension(width, height));
+            setSize(new Dimension(width, height));
+            setMaximumSize(new Dimension(width, height));
+            setMinimumSize(new Dimension(width, height));
+
+            add(label);
+            add(checkBox);
+        }
+
+        public void onChanged(Consumer<Boolean> callback) {
+            checkBox.addActionListener(e -> callback.accept(checkBox.isSelected()));
+        }
+    }
+
+    static class SmoothSelector extends JPanel {
+
+        private final JCheckBox checkBox;
+
+        public SmoothSelector(int width, int height) {
+            checkBox = new JCheckBox("Smooth", false);
+
+            JLabel label = new JLabel("Smooth");
+            label.setForeground(Color.LIGHT_GRAY);
+            label.setFont(label.getFont().deriveFont(Font.BOLD, 14));
+
+            setBackground(Color.BLACK);
+            setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+            setPreferredSize(new Dimension(width, height));
+            setSize(new Dimension(width, height));
+            setMaximumSize(new Dimension(width, height));
+            setMinimumSize(new Dimension(width, height));
+
+            add(label);
+            add(checkBox);
+        }
+
+        public void onChanged(Consumer<Boolean> callback) {
+            checkBox.addActionListener(e -> callback.accept(checkBox.isSelected()));
+        }
+    }
+
+    static class EqualisedSelector extends JPanel {
+
+        private final JCheckBox checkBox;
+
+        public EqualisedSelector(int width, int height) {
+            checkBox = new JCheckBox("Equalise", false);
+
+            JLabel label = new JLabel("Equalise");
+            label.setForeground(Color.LIGHT_GRAY);
+            label.setFont(label.getFont().deriveFont(Font.BOLD, 14));
+
+            setBackground(Color.BLACK);
+            setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+            setPreferredSize(new Dimension(width, height));
+            setSize(new Dimension(width, height));
+            setMaximumSize(new Dimension(width, height));
+            setMinimumSize(new Dimension(width, height));
+
+            add(label);
+            add(checkBox);
+        }
+
+        public void onChanged(Consumer<Boolean> callback) {
+            checkBox.addActionListener(e -> callback.accept(checkBox.isSelected()));
+        }
+    }
+
     static class SetInput extends JPanel {
         private final JComboBox<String> comboBox;
 
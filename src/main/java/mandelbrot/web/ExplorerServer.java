@@ -0,0 +1,169 @@
+package mandelbrot.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Serves the web explorer out of the resources and its tiles out of a TileStore:
+//  GET /tiles/{mandelbrot|julia}/{z}/{x}/{y}.png?it=1000&zx=0&zy=0&smooth
+//Tiles are answered with an ETag for the spec, so a browser that has one already gets a 304 without anything
+//being plotted; requests run on a fixed pool, every tile on a thread of its own. Tiles the store gave up on are
+//answered 503.
+public class ExplorerServer {
+
+    private static final Map<String, String> TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "application/javascript; charset=utf-8",
+            "png", "image/png");
+    private static final int DEFAULT_MAX_ITERATIONS = 100;
+    //tiles never change for a spec, resources may with the next build
+    private static final String TILE_CACHING = "public, max-age=86400";
+
+    private final HttpServer server;
+    private final ExecutorService executorService;
+    private final TileStore store;
+
+    //listens on address only, port 0 picks a free one, see getPort
+    public ExplorerServer(InetAddress address, int port, int threads, TileStore store) throws IOException {
+        this.store = store;
+        this.executorService = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.setExecutor(executorService);
+        server.createContext("/tiles/", this::tile);
+        server.createContext("/", this::resource);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void tile(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Only GET is served");
+                return;
+            }
+
+            TileStore.Spec spec;
+            try {
+                spec = parse(exchange.getRequestURI());
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage());
+                return;
+            }
+
+            String etag = store.getETag(spec);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", TILE_CACHING);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] png;
+            try {
+                png = store.get(spec);
+            } catch (CancellationException e) {
+                send(exchange, 503, e.getMessage());
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", TYPES.get("png"));
+            exchange.sendResponseHeaders(200, png.length);
+            exchange.getResponseBody().write(png);
+        } catch (RuntimeException e) {
+            System.err.println("Tile " + exchange.getRequestURI() + " failed: " + e);
+            throw e;
+        }
+    }
+
+    //Path /tiles/{set}/{z}/{x}/{y}.png, the options in the query.
+    private static TileStore.Spec parse(URI uri) {
+        String[] parts = uri.getPath().substring("/tiles/".length()).split("/");
+        if (parts.length != 4 || !parts[3].endsWith(".png")) {
+            throw new IllegalArgumentException("Expected /tiles/{set}/{z}/{x}/{y}.png, got " + uri.getPath());
+        }
+        String set;
+        if (parts[0].equalsIgnoreCase("mandelbrot")) {
+            set = "Mandelbrot";
+        } else if (parts[0].equalsIgnoreCase("julia")) {
+            set = "Julia";
+        } else {
+            throw new IllegalArgumentException("Unknown set " + parts[0]);
+        }
+
+        Map<String, String> query = new HashMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String option : uri.getRawQuery().split("&")) {
+                int equals = option.indexOf('=');
+                query.put(equals < 0 ? option : option.substring(0, equals),
+                        equals < 0 ? "" : option.substring(equals + 1));
+            }
+        }
+
+        //NumberFormatException is an IllegalArgumentException, so bad numbers answer 400 as well
+        return new TileStore.Spec(set,
+                Integer.parseInt(parts[1]),
+                new BigInteger(parts[2]),
+                new BigInteger(parts[3].substring(0, parts[3].length() - ".png".length())),
+                Integer.parseInt(query.getOrDefault("it", String.valueOf(DEFAULT_MAX_ITERATIONS))),
+                Double.parseDouble(query.getOrDefault("zx", "0")),
+                Double.parseDouble(query.getOrDefault("zy", "0")),
+                query.containsKey("smooth"));
+    }
+
+    private void resource(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                path = "/index.html";
+            }
+            String type = TYPES.get(path.substring(path.lastIndexOf('.') + 1));
+            InputStream resource = path.contains("..") || type == null
+                    ? null
+                    : ExplorerServer.class.getResourceAsStream(path);
+            if (resource == null) {
+                send(exchange, 404, "No " + path);
+                return;
+            }
+
+            try (resource) {
+                byte[] bytes = resource.readAllBytes();
+                exchange.getResponseHeaders().set("Content-Type", type);
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package mandelbrot.web;
+
+import mandelbrot.plotter.Plotter;
+import mandelbrot.render.Palette;
+import mandelbrot.render.PngWriter;
+import mandelbrot.render.Precision;
+import mandelbrot.render.View;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.Deflater;
+
+//PNG tiles of the XYZ pyramid over the square [-2, 2] x [-2, 2]: tile (x, y) of level z is the 1 / 2^z wide part
+//of it at column x and row y, y growing downwards like the screen. Finished tiles are kept least recently used
+//first up to a budget of bytes, and a tile that is asked for again while it is being plotted is plotted once, the
+//later requests wait for the first one. A plot is given up on once it runs past TIMEOUT, by then the browser that
+//asked has long moved on, or when its thread is interrupted as the server stops.
+public class TileStore {
+
+    public static final int TILE_SIZE = 256;
+    private static final BigDecimal PLANE_MIN = BigDecimal.valueOf(-2);
+    private static final BigDecimal PLANE_SIZE = BigDecimal.valueOf(4);
+    //deepest level whose pixel step is still a normal double, and the highest limit a tile may ask for, the same
+    //as the window's
+    private static final int MAX_LEVEL = 1000;
+    private static final int MAX_ITERATIONS = 100_000;
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+    //bumped whenever the same spec would come out different, so browsers drop tiles they kept
+    private static final String VERSION = "1";
+
+    private final LinkedHashMap<Spec, byte[]> tiles = new LinkedHashMap<>(64, 0.75f, true);
+    private final ConcurrentHashMap<Spec, CompletableFuture<byte[]>> plotting = new ConcurrentHashMap<>();
+    private final long budget;
+    private final boolean avx;
+    private long bytes;
+
+    public TileStore(long budget, boolean avx) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Cache budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+        this.avx = avx;
+    }
+
+    //Throws CancellationException when the plot was given up on, for this request or the one it waited for.
+    public byte[] get(Spec spec) {
+        byte[] tile = cached(spec);
+        if (tile != null) {
+            return tile;
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = plotting.putIfAbsent(spec, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            //it may have been finished between the lookup and claiming it
+            tile = cached(spec);
+            if (tile == null) {
+                tile = plot(spec);
+                store(spec, tile);
+            }
+            mine.complete(tile);
+            return tile;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            plotting.remove(spec, mine);
+        }
+    }
+
+    //Stands for the tile's bytes: equal specs always give the same PNG.
+    public String getETag(Spec spec) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((VERSION + " " + avx + " " + spec).getBytes(StandardCharsets.UTF_8));
+            return '"' + String.format("%040x", new BigInteger(1, hash)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JDK has SHA-1", e);
+        }
+    }
+
+    private synchronized byte[] cached(Spec spec) {
+        return tiles.get(spec);
+    }
+
+    private synchronized void store(Spec spec, byte[] tile) {
+        if (tiles.put(spec, tile) == null) {
+            bytes += tile.length;
+        }
+        Iterator<byte[]> eldest = tiles.values().iterator();
+        while (bytes > budget && eldest.hasNext()) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] plot(Spec spec) {
+        //the tile edges are exact, so deep levels still line up with their neighbours
+        BigDecimal size = PLANE_SIZE.divide(new BigDecimal(BigInteger.ONE.shiftLeft(spec.z)));
+        BigDecimal half = size.divide(BigDecimal.valueOf(2));
+        BigDecimal centerX = PLANE_MIN.add(size.multiply(new BigDecimal(spec.x))).add(half);
+        BigDecimal centerY = PLANE_MIN.add(size.multiply(new BigDecimal(spec.y))).add(half);
+        double zoom = TILE_SIZE / size.doubleValue();
+        View view = new View(centerX, centerY, zoom, spec.maxIterations, spec.startX, spec.startY, spec.set,
+                avx, false, spec.smooth, false);
+
+        Plotter plotter = Precision.of(view).create(view, TILE_SIZE, TILE_SIZE);
+        plotter.setMaxIterations(view.getMaxIterations());
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), view.getStep());
+        long deadline = System.nanoTime() + TIMEOUT;
+        Thread thread = Thread.currentThread();
+        BooleanSupplier cancellation = () -> thread.isInterrupted() || System.nanoTime() - deadline > 0;
+        plotter.setCancellation(cancellation);
+
+        double step = view.getStep();
+        double minx = (plotter.isRelative() ? 0 : view.getCenterX()) - TILE_SIZE / 2.0 * step;
+        double miny = (plotter.isRelative() ? 0 : view.getCenterY()) - TILE_SIZE / 2.0 * step;
+        plotter.plot(minx, miny, step, TILE_SIZE, TILE_SIZE, 0, TILE_SIZE);
+        //a cancelled plot leaves rows out, it must not be cached
+        if (cancellation.getAsBoolean()) {
+            throw new CancellationException("Tile " + spec + " was given up on");
+        }
+
+        int[] iterations = plotter.getBuffer();
+        float[] magnitudes = plotter.getMagnitudes();
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        for (int pixel = 0; pixel < pixels.length; ++pixel) {
+            pixels[pixel] = spec.smooth
+                    ? Palette.smooth(iterations[pixel], magnitudes[pixel], spec.maxIterations)
+                    : Palette.banded(iterations[pixel], spec.maxIterations);
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try (PngWriter writer = new PngWriter(png, TILE_SIZE, TILE_SIZE, Deflater.BEST_SPEED)) {
+            writer.write(pixels, 0, TILE_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return png.toByteArray();
+    }
+
+    //Everything that decides how a tile looks.
+    public static final class Spec {
+        private final String set;
+        private final int z;
+        private final BigInteger x;
+        private final BigInteger y;
+        private final int maxIterations;
+        private final double startX;
+        private final double startY;
+        private final boolean smooth;
+
+        public Spec(String set, int z, BigInteger x, BigInteger y, int maxIterations,
+                    double startX, double startY, boolean smooth) {
+            if (z < 0 || z > MAX_LEVEL) {
+                throw new IllegalArgumentException("Level must be within 0.." + MAX_LEVEL + ": " + z);
+            }
+            BigInteger tiles = BigInteger.ONE.shiftLeft(z);
+            if (x.signum() < 0 || y.signum() < 0 || x.compareTo(tiles) >= 0 || y.compareTo(tiles) >= 0) {
+                throw new IllegalArgumentException("No tile " + x + ", " + y + " at level " + z);
+            }
+            if (maxIterations <= 0 || maxIterations > MAX_ITERATIONS) {
+                throw new IllegalArgumentException("Max iterations must be within 1.." + MAX_ITERATIONS + ": "
+                        + maxIterations);
+            }
+            this.set = set;
+            this.z = z;
+            this.x = x;
+            this.y = y;
+            this.maxIterations = maxIterations;
+            this.startX = startX;
+            this.startY = startY;
+            this.smooth = smooth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Spec)) return false;
+            Spec spec = (Spec) o;
+            return z == spec.z
+                    && maxIterations == spec.maxIterations
+                    && Double.compare(spec.startX, startX) == 0
+                    && Double.compare(spec.startY, startY) == 0
+                    && smooth == spec.smooth
+                    && set.equals(spec.set)
+                    && x.equals(spec.x)
+                    && y.equals(spec.y);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(set, z, x, y, maxIterations, startX, startY, smooth);
+        }
+
+        @Override
+        public String toString() {
+            return set + "/" + z + "/" + x + "/" + y + "?it=" + maxIterations + "&zx=" + startX + "&zy=" + startY
+                    + (smooth ? "&smooth" : "");
+        }
+    }
+}
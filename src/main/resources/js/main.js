@@ -2,25 +2,34 @@ const fillColor = '#16181d';
 const circleColor = '#c98b6b';
 const fractalColor = '#6f737a'
 const pathColor = '#509be0';
+//served by mandelbrot.Explorer the background comes in tiles of the XYZ pyramid over [-2, 2] x [-2, 2],
+//opened as a file it is computed here like before
+const tiled = location.protocol.startsWith('http');
+const tileSize = 256;
+//deepest level the doubles of this page can still place tiles at
+const maxLevel = 45;
+const zoomRate = 1.25;
 
 window.addEventListener('load', function () {
     let fractal = "mandelbrot";
     let z0x = 0;
     let z0y = 0
-    let iterations = 10;
+    let iterations = 100;
 
     const canvas = document.getElementById('canvas');
     const background = document.createElement('canvas');
 
     const width = canvas.clientWidth;
     const height = canvas.clientHeight;
-    const zoom = 4 / (Math.min(height, width) * 0.8); //60% of height = 4x4 square
-    const offsetX = -width * zoom / 2;
-    const offsetY = -height * zoom / 2;
-    const minx = sx(-2);
-    const maxx = sx(2);
-    const miny = sy(-2);
-    const maxy = sy(2);
+    let zoom = 4 / (Math.min(height, width) * 0.8); //60% of height = 4x4 square
+    let offsetX = -width * zoom / 2;
+    let offsetY = -height * zoom / 2;
+
+    //tiles still loading for the current background, and where the orbit is drawn from
+    let pending = [];
+    let pointer = null;
+    let drag = null;
+    let scheduled = false;
 
     canvas.setAttribute('width', width + '');
     canvas.setAttribute('height', height + '');
@@ -29,32 +38,82 @@ window.addEventListener('load', function () {
 
     const ctx = canvas.getContext("2d");
 
+    document.getElementById('it').value = iterations;
     drawBackground();
-    ctx.drawImage(background, 0, 0);
-
-    canvas.addEventListener('mousemove', (event) => drawPath(event.offsetX, event.offsetY));
+    present();
+
+    canvas.addEventListener('mousemove', (event) => {
+        if (drag) {
+            offsetX -= (event.offsetX - drag.x) * zoom;
+            offsetY -= (event.offsetY - drag.y) * zoom;
+            drag = {x: event.offsetX, y: event.offsetY};
+            redraw();
+        }
+        pointer = {x: event.offsetX, y: event.offsetY};
+        present();
+    });
+
+    if (tiled) {
+        canvas.addEventListener('mousedown', (event) => drag = {x: event.offsetX, y: event.offsetY});
+        window.addEventListener('mouseup', () => drag = null);
+
+        //zooms around the pointer, the world point under it stays put
+        canvas.addEventListener('wheel', (event) => {
+            event.preventDefault();
+            const rate = event.deltaY < 0 ? 1 / zoomRate : zoomRate;
+            if (rate < 1 && level() >= maxLevel) {
+                return;
+            }
+            const x = wx(event.offsetX);
+            const y = wy(event.offsetY);
+            zoom *= rate;
+            offsetX = x - event.offsetX * zoom;
+            offsetY = y - event.offsetY * zoom;
+            redraw();
+        }, {passive: false});
+    }
 
     document.getElementById('fractalInput').onchange = event => {
         fractal = event.target.value;
-        drawBackground();
-        ctx.drawImage(background, 0, 0);
+        redraw();
     }
 
     document.getElementById('zx').oninput = event => {
         z0x = parseInt(event.target.value) / 10;
-        drawBackground();
-        ctx.drawImage(background, 0, 0);
+        redraw();
     }
 
     document.getElementById('zy').oninput = event => {
         z0y = parseInt(event.target.value) / 10;
-        drawBackground();
-        ctx.drawImage(background, 0, 0);
+        redraw();
     }
 
     document.getElementById('it').oninput = event => {
         iterations = parseInt(event.target.value);
-        drawBackground();
+        if (tiled) {
+            redraw();
+        } else {
+            present();
+        }
+    }
+
+    //slider and wheel events come faster than frames, the background is drawn at most once per frame
+    function redraw() {
+        if (!scheduled) {
+            scheduled = true;
+            requestAnimationFrame(() => {
+                scheduled = false;
+                drawBackground();
+                present();
+            });
+        }
+    }
+
+    function present() {
+        ctx.drawImage(background, 0, 0);
+        if (pointer) {
+            drawPath(pointer.x, pointer.y);
+        }
     }
 
     //screen to world x
@@ -83,18 +142,32 @@ window.addEventListener('load', function () {
         ctx.fillStyle = fillColor;
         ctx.fillRect(0, 0, width, height);
 
+        if (tiled) {
+            drawTiles();
+        } else {
+            drawPixels();
+        }
+        drawCircle();
+    }
+
+    function drawCircle() {
+        const ctx = background.getContext("2d");
+
         ctx.beginPath();
         ctx.strokeStyle = circleColor;
         ctx.lineWidth = 3;
         ctx.arc(sx(0), sy(0), 2 / zoom, 0, 2 * Math.PI);
         ctx.stroke();
+    }
 
+    function drawPixels() {
+        const ctx = background.getContext("2d");
         const fractal = getFractal();
 
         ctx.fillStyle = fractalColor;
 
-        for (let x = minx; x <= maxx; x++) {
-            for (let y = miny; y <= maxy; ++y) {
+        for (let x = sx(-2); x <= sx(2); x++) {
+            for (let y = sy(-2); y <= sy(2); ++y) {
                 const path = fractal(wx(x), wy(y), z0x, z0y, 30);
                 if (path.length === 30) {
                     ctx.fillRect(x, y, 1, 1);
@@ -103,9 +176,43 @@ window.addEventListener('load', function () {
         }
     }
 
-    function drawPath(x, y) {
-        ctx.drawImage(background, 0, 0);
+    //level whose tiles have at least as many pixels as they cover on screen
+    function level() {
+        return Math.min(maxLevel, Math.max(0, Math.ceil(Math.log2(4 / (tileSize * zoom)))));
+    }
 
+    function drawTiles() {
+        //tiles of an older background are not waited for anymore
+        pending.forEach(image => {
+            image.onload = null;
+            image.src = '';
+        });
+        pending = [];
+
+        const z = level();
+        const count = Math.pow(2, z);
+        const size = 4 / count;
+        const first = (world) => Math.max(0, Math.floor((world + 2) / size));
+        const last = (world) => Math.min(count - 1, Math.floor((world + 2) / size));
+
+        for (let y = first(wy(0)); y <= last(wy(height)); ++y) {
+            for (let x = first(wx(0)); x <= last(wx(width)); ++x) {
+                const image = new Image();
+                image.onload = () => {
+                    pending = pending.filter(other => other !== image);
+                    const ctx = background.getContext("2d");
+                    ctx.drawImage(image, sx(x * size - 2), sy(y * size - 2), size / zoom, size / zoom);
+                    drawCircle();
+                    present();
+                };
+                image.src = 'tiles/' + fractal.toLowerCase() + '/' + z + '/' + x + '/' + y + '.png'
+                    + '?it=' + iterations + '&zx=' + z0x + '&zy=' + z0y;
+                pending.push(image);
+            }
+        }
+    }
+
+    function drawPath(x, y) {
         const path = getFractal()(wx(x), wy(y), z0x, z0y, iterations);
 
         if (path.length > 1) {
@@ -0,0 +1,54 @@
+package mandelbrot.plotter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PlotterTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final double STEP = 3.0 / WIDTH;
+    private static final double MIN_X = -0.5 - WIDTH / 2.0 * STEP;
+    private static final double MIN_Y = -HEIGHT / 2.0 * STEP;
+
+    @Test
+    void resumeWithoutOrbitsPlotsAgain() {
+        Plotter resumed = new SubdivisionPlotter(new DoubleDoublePlotter(WIDTH, HEIGHT));
+        assertFalse(resumed.isResumable());
+        resumed.setMaxIterations(50);
+        resumed.plot(MIN_X, MIN_Y, STEP, WIDTH, HEIGHT, 0, WIDTH);
+        resumed.setMaxIterations(500);
+        resumed.resume(MIN_X, MIN_Y, STEP, WIDTH, HEIGHT, 0, WIDTH, 50);
+
+        Plotter fresh = new SubdivisionPlotter(new DoubleDoublePlotter(WIDTH, HEIGHT));
+        fresh.setMaxIterations(500);
+        fresh.plot(MIN_X, MIN_Y, STEP, WIDTH, HEIGHT, 0, WIDTH);
+
+        assertArrayEquals(fresh.getBuffer(), resumed.getBuffer());
+    }
+
+    //Pixels the interior test settles take no iterations, escaping ones take their count.
+    @Test
+    void countsExecutedIterations() {
+        Plotter[] plotters = {
+                new MandelbrotPlotter(WIDTH, HEIGHT),
+                new MandelbrotAVXPlotter(WIDTH, HEIGHT),
+                new MandelbrotFloatAVXPlotter(WIDTH, HEIGHT)
+        };
+        for (Plotter plotter : plotters) {
+            plotter.setMaxIterations(500);
+            plotter.plot(-0.2, -0.1, 0.2 / WIDTH, WIDTH, HEIGHT, 0, WIDTH);
+            assertEquals(0, plotter.getIterations(), plotter.getClass().getSimpleName());
+            assertEquals(WIDTH * HEIGHT, Arrays.stream(plotter.getBuffer()).filter(it -> it == 500).count());
+
+            plotter.plot(0.5, 0.5, STEP, WIDTH, HEIGHT, 0, WIDTH);
+            long counts = Arrays.stream(plotter.getBuffer()).asLongStream().sum();
+            assertEquals(counts, plotter.getIterations(), plotter.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package mandelbrot.render;
+
+import mandelbrot.plotter.Plotter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RemotePlotterTest {
+
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 192;
+    private static final int TILE_SIZE = 32;
+    private static final int CONNECTIONS = 2;
+
+    @Test
+    void matchesLocalPlot() throws IOException {
+        View view = view();
+        try (TileServer first = start(); TileServer second = start(); WorkerPool workers = connect(first, second)) {
+            Plotter remote = remote(view, workers);
+            plot(remote, view, 0, HEIGHT);
+
+            Plotter local = local(view);
+            plot(local, view, 0, HEIGHT);
+            assertArrayEquals(local.getBuffer(), remote.getBuffer());
+            assertArrayEquals(local.getMagnitudes(), remote.getMagnitudes());
+            assertEquals(2 * CONNECTIONS, workers.size());
+        }
+    }
+
+    //The tiles of a worker that goes away halfway go to the other one, the image comes out the same.
+    @Test
+    void survivesKilledWorker() throws IOException {
+        View view = view();
+        try (TileServer first = start(); TileServer second = start(); WorkerPool workers = connect(first, second)) {
+            Plotter remote = remote(view, workers);
+            plot(remote, view, 0, HEIGHT / 2);
+            first.close();
+            plot(remote, view, HEIGHT / 2, HEIGHT);
+
+            Plotter local = local(view);
+            plot(local, view, 0, HEIGHT);
+            assertArrayEquals(local.getBuffer(), remote.getBuffer());
+            assertEquals(CONNECTIONS, workers.size());
+        }
+    }
+
+    @Test
+    void rejectsOversizedTiles() throws IOException {
+        TileProtocol.Request request = request(TileProtocol.MAX_TILE_SIZE + 1, 1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        request.write(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(IOException.class, () -> TileProtocol.Request.read(in));
+
+        TileProtocol.Request overflowing = request(1 << 16, 1 << 16);
+        bytes.reset();
+        overflowing.write(new DataOutputStream(bytes));
+        DataInputStream overflow = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(IOException.class, () -> TileProtocol.Request.read(overflow));
+    }
+
+    @Test
+    void rejectsHighLimits() throws IOException {
+        TileProtocol.Request request = request(TILE_SIZE, TILE_SIZE);
+        request.maxIterations = TileProtocol.MAX_ITERATIONS + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        request.write(new DataOutputStream(bytes));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(IOException.class, () -> TileProtocol.Request.read(in));
+    }
+
+    //A worker that announces more bytes than any tile compresses to is dropped before anything is allocated.
+    @Test
+    void dropsWorkerWithOversizedAnswer() throws IOException {
+        View view = view();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread thread = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    in.readInt();
+                    in.readInt();
+                    out.writeInt(1);
+                    TileProtocol.Request.read(in);
+                    out.writeInt(TileProtocol.OK);
+                    out.writeInt(Integer.MAX_VALUE);
+                    out.flush();
+                    in.read();
+                } catch (IOException ignored) {
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+
+            try (WorkerPool workers = WorkerPool.connect(List.of(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort())))) {
+                Plotter remote = remote(view, workers);
+                plot(remote, view, 0, HEIGHT);
+
+                Plotter local = local(view);
+                plot(local, view, 0, HEIGHT);
+                assertArrayEquals(local.getBuffer(), remote.getBuffer());
+                assertEquals(0, workers.size());
+            }
+        }
+    }
+
+    private static View view() {
+        return new View(BigDecimal.valueOf(-0.5), BigDecimal.ZERO, WIDTH / 3.0, 500, 0, 0, "Mandelbrot",
+                true, false, false, false);
+    }
+
+    private static TileServer start() throws IOException {
+        TileServer server = new TileServer(InetAddress.getLoopbackAddress(), 0, CONNECTIONS);
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    private static WorkerPool connect(TileServer... servers) throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (TileServer server : servers) {
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        }
+        return WorkerPool.connect(addresses);
+    }
+
+    private static Plotter local(View view) {
+        Plotter plotter = Precision.of(view).create(view, WIDTH, HEIGHT);
+        setUp(plotter, view);
+        return plotter;
+    }
+
+    private static Plotter remote(View view, WorkerPool workers) {
+        Plotter plotter = new RemotePlotter(Precision.of(view).create(view, WIDTH, HEIGHT), WIDTH, HEIGHT, workers,
+                view);
+        setUp(plotter, view);
+        return plotter;
+    }
+
+    private static void setUp(Plotter plotter, View view) {
+        plotter.setMaxIterations(view.getMaxIterations());
+        plotter.setZ(view.getStartX(), view.getStartY());
+        plotter.setReference(view.getPreciseCenterX(), view.getPreciseCenterY(), view.getStep());
+    }
+
+    //the tiles of rows top until bottom
+    private static void plot(Plotter plotter, View view, int top, int bottom) {
+        double step = view.getStep();
+        double minx = view.getCenterX() - WIDTH / 2.0 * step;
+        double miny = view.getCenterY() - HEIGHT / 2.0 * step;
+        for (int y = top; y < bottom; y += TILE_SIZE) {
+            for (int x = 0; x < WIDTH; x += TILE_SIZE) {
+                plotter.plot(minx + x * step, miny + y * step, step, TILE_SIZE, TILE_SIZE, y * WIDTH + x, WIDTH);
+            }
+        }
+    }
+
+    private static TileProtocol.Request request(int width, int height) {
+        View view = view();
+        TileProtocol.Request request = new TileProtocol.Request();
+        request.precision = Precision.of(view);
+        request.set = view.getSet();
+        request.avx = true;
+        request.maxIterations = view.getMaxIterations();
+        request.referenceX = view.getPreciseCenterX();
+        request.referenceY = view.getPreciseCenterY();
+        request.referenceStep = view.getStep();
+        request.step = view.getStep();
+        request.width = width;
+        request.height = height;
+        return request;
+    }
+}